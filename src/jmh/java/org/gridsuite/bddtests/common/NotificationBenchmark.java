@@ -0,0 +1,87 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Parse-and-match throughput of the notifications, as done for each websocket message and each waiter.
+// The payload is written before the headers (worst case: it has to be skipped).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationBenchmark {
+
+    @Param({"0", "10000", "1000000"})
+    private int payloadSize;
+
+    private byte[] studyNotification;
+    private byte[] directoryNotification;
+    private String studyUuid;
+    private String nodeUuid;
+    private String rootNetworkUuid;
+    private String directoryUuid;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        studyUuid = UUID.randomUUID().toString();
+        nodeUuid = UUID.randomUUID().toString();
+        rootNetworkUuid = UUID.randomUUID().toString();
+        directoryUuid = UUID.randomUUID().toString();
+        String payload = "x".repeat(payloadSize);
+
+        ObjectNode study = mapper.createObjectNode();
+        study.put("payload", payload);
+        ObjectNode studyHeaders = study.putObject("headers");
+        studyHeaders.put("studyUuid", studyUuid);
+        studyHeaders.put("node", nodeUuid);
+        studyHeaders.put("rootNetworkUuid", rootNetworkUuid);
+        studyHeaders.put("updateType", "loadflowResult");
+        studyHeaders.put("timestamp", System.currentTimeMillis());
+        studyNotification = mapper.writeValueAsBytes(study);
+
+        ObjectNode directory = mapper.createObjectNode();
+        directory.put("payload", payload);
+        ObjectNode directoryHeaders = directory.putObject("headers");
+        directoryHeaders.put("elementNames", "microStudy");
+        directoryHeaders.put("updateType", "directories");
+        directoryHeaders.put("directoriesInfos", "[{\"uuid\":\"" + directoryUuid + "\",\"name\":\"bddtmp\",\"children\":[]}]");
+        directoryNotification = mapper.writeValueAsBytes(directory);
+    }
+
+    @Benchmark
+    public boolean parseAndMatchStudyNode() throws IOException {
+        Notification notification = Notification.parse(new ByteArrayInputStream(studyNotification));
+        return NotificationWaiter.checkNotificationMatchStudyNode(notification, studyUuid, rootNetworkUuid, nodeUuid);
+    }
+
+    @Benchmark
+    public boolean parseAndMatchElement() throws IOException {
+        Notification notification = Notification.parse(new ByteArrayInputStream(directoryNotification));
+        return NotificationWaiter.checkNotificationMatchElement(notification, "microStudy", directoryUuid);
+    }
+}
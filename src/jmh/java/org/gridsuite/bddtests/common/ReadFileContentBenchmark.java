@@ -0,0 +1,64 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Utils.readFileContent on the MicroGrid case resource, and on a generated file of the given size (in KB)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadFileContentBenchmark {
+
+    @Param({"100", "10000"})
+    private int generatedFileSizeKb;
+
+    private final Path microGridFile = Paths.get("src", "test", "resources", "data", "MicroGrid_NL.xiidm");
+    private Path generatedFile;
+
+    @Setup
+    public void setup() throws IOException {
+        generatedFile = Files.createTempFile("bddtests-bench", ".json");
+        String line = "{\"id\":\"line\",\"value\":" + "1234567890".repeat(6) + "}\n";
+        Files.writeString(generatedFile, line.repeat(Math.max(1, generatedFileSizeKb * 1024 / line.length())));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(generatedFile);
+    }
+
+    @Benchmark
+    public String readMicroGrid() {
+        return Utils.readFileContent(microGridFile, -1);
+    }
+
+    @Benchmark
+    public String readGeneratedFile() {
+        return Utils.readFileContent(generatedFile, -1);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.directory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Decoding of a directory listing into a Flux<DirectoryElement>, as done by WebClient.bodyToFlux
+// (Jackson2JsonDecoder, body received in 8 KB chunks): full listing, and stop at the first match (getElementId)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryElementDecodingBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+    private static final ResolvableType ELEMENT_TYPE = ResolvableType.forClass(DirectoryElement.class);
+
+    @Param({"100", "10000"})
+    private int elementCount;
+
+    private final Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+    private byte[] listing;
+    private String middleName;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ArrayNode elements = mapper.createArrayNode();
+        for (int i = 0; i < elementCount; i++) {
+            ObjectNode element = elements.addObject();
+            element.put("elementUuid", UUID.randomUUID().toString());
+            element.put("elementName", "element_" + i);
+            element.put("type", i % 2 == 0 ? "STUDY" : "CASE");
+            element.put("owner", "bdduser");
+            element.put("subdirectoriesCount", 0);
+            element.put("description", "element number " + i);
+            element.put("creationDate", "2024-01-01T00:00:00Z");
+        }
+        listing = mapper.writeValueAsBytes(elements);
+        middleName = "element_" + (elementCount / 2);
+    }
+
+    @Benchmark
+    public List<DirectoryElement> decodeAll() {
+        return decode().collectList().block();
+    }
+
+    @Benchmark
+    public String decodeUntilMatch() {
+        return decode()
+                .filter(e -> e.getElementName().equalsIgnoreCase(middleName))
+                .next()
+                .map(DirectoryElement::getElementUuid)
+                .block();
+    }
+
+    private Flux<DirectoryElement> decode() {
+        return decoder.decode(chunks(), ELEMENT_TYPE, MediaType.APPLICATION_JSON, Map.of())
+                .cast(DirectoryElement.class);
+    }
+
+    private Flux<DataBuffer> chunks() {
+        return Flux.range(0, (listing.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> {
+                    int start = i * CHUNK_SIZE;
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(listing, start, Math.min(CHUNK_SIZE, listing.length - start)));
+                });
+    }
+}
@@ -0,0 +1,123 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.study;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gridsuite.bddtests.common.JsonStreams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Node search in a synthetic study tree (random recursive tree, as built by successive node creations):
+// in-memory search and full parse + search (the former getNodeData), and streaming search on 8 KB chunks (JsonStreams.findInTree).
+// The searched node is the last created one, so that most of the tree is visited.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StudyTreeBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"10000", "100000"})
+    private int nodeCount;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JsonNode tree;
+    private byte[] treeBytes;
+    private String searchedName;
+    private String searchedId;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        List<ObjectNode> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            ObjectNode node = mapper.createObjectNode();
+            node.put("id", new UUID(random.nextLong(), random.nextLong()).toString());
+            node.put("name", i == 0 ? "Root" : "N" + i);
+            node.put("type", i == 0 ? "ROOT" : "NETWORK_MODIFICATION");
+            node.put("description", "modification node " + i);
+            node.put("readOnly", false);
+            node.putArray("children");
+            if (i > 0) {
+                ((ArrayNode) nodes.get(random.nextInt(i)).get("children")).add(node);
+            }
+            nodes.add(node);
+        }
+        tree = nodes.get(0);
+        treeBytes = mapper.writeValueAsBytes(tree);
+        searchedName = nodes.get(nodeCount - 1).get("name").asText();
+        searchedId = nodes.get(nodeCount - 1).get("id").asText();
+    }
+
+    @Benchmark
+    public JsonNode findNodeInTreeByName() {
+        return findNodeInTree(tree, searchedName, "name");
+    }
+
+    @Benchmark
+    public JsonNode findNodeInTreeById() {
+        return findNodeInTree(tree, searchedId, "id");
+    }
+
+    @Benchmark
+    public JsonNode parseAndFindNodeInTree() throws IOException {
+        return findNodeInTree(mapper.readTree(treeBytes), searchedName, "name");
+    }
+
+    @Benchmark
+    public String streamingFindInTree() {
+        return JsonStreams.decode(chunks(), JsonStreams.findInTree("name", searchedName, "id")).block();
+    }
+
+    // recursive search on a parsed tree, as the harness did before the streaming decoding
+    private static JsonNode findNodeInTree(JsonNode node, String studyNodeIdentifier, String identifierKey) {
+        if (node.has(identifierKey) && node.get(identifierKey).asText().equalsIgnoreCase(studyNodeIdentifier)) {
+            return node;
+        }
+        for (JsonNode child : node.path("children")) {
+            JsonNode result = findNodeInTree(child, studyNodeIdentifier, identifierKey);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private Flux<DataBuffer> chunks() {
+        return Flux.range(0, (treeBytes.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> {
+                    int start = i * CHUNK_SIZE;
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(treeBytes, start, Math.min(CHUNK_SIZE, treeBytes.length - start)));
+                });
+    }
+}
@@ -11,23 +11,29 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import dev.failsafe.Failsafe;
-import dev.failsafe.RetryPolicy;
 import org.gridsuite.bddtests.cases.CaseRequests;
+import org.gridsuite.bddtests.cases.SyntheticNetworkGenerator;
 import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.common.PhaseTimer;
+import org.gridsuite.bddtests.common.Poller;
 import org.gridsuite.bddtests.common.TestContext;
 import org.gridsuite.bddtests.common.Utils;
 import org.gridsuite.bddtests.explore.ExploreRequests;
+import org.gridsuite.bddtests.metrics.BaselineGate;
+import org.gridsuite.bddtests.metrics.StepLatencyPlugin;
 import org.gridsuite.bddtests.networkconversion.NetworkConversionRequests;
 import org.gridsuite.bddtests.study.StudyRequests;
 import org.junit.platform.commons.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -65,6 +71,16 @@ public class StudySrvStepDefinitions {
         ctx.reset();
     }
 
+    // --------------------------------------------------------
+    // after all scenarios: performance regression check against a stored baseline, if requested (see BaselineGate)
+    @AfterAll
+    public static void checkPerformanceBaseline() {
+        // load tests check the baseline once, at the end of the whole test
+        if (StepLatencyPlugin.isRunReportsEnabled()) {
+            BaselineGate.checkFromSystemProperties();
+        }
+    }
+
     // --------------------------------------------------------
     // BACKGROUND conditions
 
@@ -86,33 +102,72 @@ public class StudySrvStepDefinitions {
     // --------------------------------------------------------
     @When("create case {string} in {string} from resource {string}")
     public void createCaseInFromResource(String caseName, String directoryName, String caseFileName) {
-        String dirId = ctx.getDirId(directoryName);
         Path resourceFile = Paths.get("src", "test", "resources", caseFileName);
         assertTrue(Files.exists(resourceFile) && Files.isRegularFile(resourceFile),
                 "Cannot find resource file named " + resourceFile.toFile().getAbsolutePath());
-        String user = EnvProperties.getInstance().getUserName();
-        final String description = "STEP create_case_in_directory_from_resource";
-        // async request
-        ExploreRequests.getInstance().createCaseFromFile(caseName, resourceFile, description, dirId, user);
+        createCaseInFromFile(caseName, directoryName, resourceFile, "STEP create_case_in_directory_from_resource");
+    }
+
+    // --------------------------------------------------------
+    @When("create case {string} in {string} from synthetic network with {int} substations")
+    public void createCaseInFromSyntheticNetwork(String caseName, String directoryName, int substationCount) {
+        createCaseInFromSyntheticNetwork(caseName, directoryName, SyntheticNetworkGenerator.Parameters.of(substationCount));
+    }
+
+    // --------------------------------------------------------
+    @When("create case {string} in {string} from synthetic network with {int} substations, {int} buses and {int} switches per substation, {int} lines")
+    public void createCaseInFromSyntheticNetwork(String caseName, String directoryName, int substationCount, int busesPerSubstation,
+                                                 int switchesPerSubstation, int lineCount) {
+        createCaseInFromSyntheticNetwork(caseName, directoryName,
+                new SyntheticNetworkGenerator.Parameters(substationCount, busesPerSubstation, switchesPerSubstation, lineCount, 0));
+    }
 
-        // then wait for completion:
+    private void createCaseInFromSyntheticNetwork(String caseName, String directoryName, SyntheticNetworkGenerator.Parameters parameters) {
+        Path networkFile;
+        try {
+            networkFile = SyntheticNetworkGenerator.writeTempFile(caseName, parameters);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot generate synthetic network for case " + caseName, e);
+        }
+        try {
+            createCaseInFromFile(caseName, directoryName, networkFile, "STEP create_case_in_directory_from_synthetic_network");
+        } finally {
+            try {
+                Files.deleteIfExists(networkFile);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot delete synthetic network file '{}': {}", networkFile, e.getMessage());
+            }
+        }
+    }
+
+    private void createCaseInFromFile(String caseName, String directoryName, Path caseFile, String description) {
+        String dirId = ctx.getDirId(directoryName);
+        String user = EnvProperties.getInstance().getUserName();
+        // phases: explore upload, directory insert (notification, then listing), case import, import parameters (network conversion)
+        PhaseTimer phases = PhaseTimer.start("case creation");
+        // async request, then wait for completion:
         // 1. check element creation in target directory
-        String caseId = ctx.waitForElementCreation(dirId, "CASE", caseName);
+        String caseId = ctx.executeAndWaitForElementCreation(
+                () -> {
+                    ExploreRequests.getInstance().createCaseFromFile(caseName, caseFile, description, dirId, user);
+                    phases.mark("upload response");
+                },
+                dirId, "CASE", caseName, phases);
         assertNotNull(caseId, "Case not created in directory with name " + caseName);
         // 2. check case creation completion
         final String cId = caseId;
-        RetryPolicy<Object> retryPolicyStudy = RetryPolicy.builder()
-                .withDelay(Duration.ofMillis(1000))
-                .withMaxRetries(TestContext.MAX_WAITING_TIME_IN_SEC)
-                .onRetriesExceeded(e -> LOGGER.warn("Waiting time exceeded"))
-                .handleResult(Boolean.FALSE)
-                .build();
-        LOGGER.info("Wait for '{}' case creation completion (max: {} sec)", caseName, retryPolicyStudy.getConfig().getMaxRetries());
-        boolean studyExists = Failsafe.with(retryPolicyStudy).get(() -> CaseRequests.getInstance().existsCase(cId));
-        assertTrue(studyExists, "Case full creation not confirmed");
+        LOGGER.info("Wait for '{}' case creation completion (max: {} sec)", caseName, TestContext.MAX_WAITING_TIME_IN_SEC);
+        boolean caseExists = Poller.pollUntil("case creation",
+                () -> CaseRequests.getInstance().existsCase(cId),
+                Boolean.TRUE::equals,
+                Duration.ofSeconds(TestContext.MAX_WAITING_TIME_IN_SEC));
+        assertTrue(caseExists, "Case full creation not confirmed");
+        phases.mark("case exists");
 
         ctx.setCurrentCase(caseName, caseId);
         ctx.setCaseExtentions(caseName, getCaseExtensions(caseId));
+        phases.mark("import parameters");
+        phases.finish();
     }
 
     // --------------------------------------------------------
@@ -170,11 +225,18 @@ public class StudySrvStepDefinitions {
         if (!StringUtils.isBlank(extensionsKey)) {
             body.put(extensionsKey, extensions);
         }
+        // phases: explore request, directory insert (notification #1), network import by the study server (notification #2)
+        PhaseTimer phases = PhaseTimer.start("study creation");
         ctx.executeAndWaitForStudyCreation(
-                () -> ExploreRequests.getInstance().createStudyFromCase(studyName, caseId, description, dirId, user, caseFormat, body.toString(), duplicateCase),
+                () -> {
+                    ExploreRequests.getInstance().createStudyFromCase(studyName, caseId, description, dirId, user, caseFormat, body.toString(), duplicateCase);
+                    phases.mark("explore response");
+                },
                 studyName,
                 directoryName,
-                TestContext.MAX_WAITING_TIME_IN_SEC);
+                TestContext.MAX_WAITING_TIME_IN_SEC,
+                phases);
+        phases.finish();
     }
 
     // --------------------------------------------------------
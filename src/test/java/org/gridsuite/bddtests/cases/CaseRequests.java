@@ -11,17 +11,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
 public final class CaseRequests {
 
-    public static synchronized CaseRequests getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new CaseRequests();
-        }
-        return INSTANCE;
+    public static CaseRequests getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final CaseRequests INSTANCE = new CaseRequests();
     }
 
-    private static CaseRequests INSTANCE = null;
     private final WebClient webClient;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CaseRequests.class);
@@ -30,25 +31,22 @@ public final class CaseRequests {
         webClient = EnvProperties.getInstance().getWebClient(EnvProperties.MicroService.CASE_SERVER);
     }
 
-    public boolean existsCase(String caseId) {
-        final boolean[] exists = {false};
-
+    public Mono<Boolean> existsCaseAsync(String caseId) {
         String path = UriComponentsBuilder.fromPath("cases/{caseId}/exists")
                 .buildAndExpand(caseId)
                 .toUriString();
 
-        // iterate through the stream (just true/false expected)
-        webClient.get()
+        // just true/false expected
+        return webClient.get()
                 .uri(path)
                 .retrieve()
                 .bodyToMono(String.class)
-                .doOnNext(
-                        s -> {
-                            LOGGER.info("existsCase '{}'", s);
-                            exists[0] = s.equalsIgnoreCase("true");
-                        }
-                ).block();
-
-        return exists[0];
+                .doOnNext(s -> LOGGER.info("existsCase '{}'", s))
+                .map(s -> s.equalsIgnoreCase("true"))
+                .defaultIfEmpty(false);
+    }
+
+    public boolean existsCase(String caseId) {
+        return Boolean.TRUE.equals(existsCaseAsync(caseId).block());
     }
 }
@@ -0,0 +1,222 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.cases;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Synthetic XIIDM networks (same schema as data/MicroGrid_NL.xiidm), to measure import/build/loadflow durations
+// as the network size grows. Written with a streaming XML writer: no size limit but the disk.
+// Each substation has one 400 kV bus-breaker voltage level, with its buses coupled by breakers, a load,
+// and a generator for one substation out of GENERATOR_SPACING. The first lines connect all the substations (spanning tree),
+// the other ones are added between random substations. Same parameters and seed => same network.
+public final class SyntheticNetworkGenerator {
+
+    public record Parameters(int substationCount, int busesPerSubstation, int switchesPerSubstation, int lineCount, long seed) {
+
+        public Parameters {
+            assertTrue(substationCount > 0, "At least one substation is required");
+            assertTrue(busesPerSubstation > 0, "At least one bus per substation is required");
+            assertTrue(switchesPerSubstation >= busesPerSubstation - 1,
+                    "At least " + (busesPerSubstation - 1) + " switches per substation are required to couple its buses");
+            assertTrue(lineCount >= substationCount - 1,
+                    "At least " + (substationCount - 1) + " lines are required to connect the substations");
+        }
+
+        // default topology: 2 buses and 3 switches per substation, 1.5 lines per substation
+        public static Parameters of(int substationCount) {
+            return new Parameters(substationCount, 2, 3, Math.max(substationCount - 1, substationCount * 3 / 2), 0);
+        }
+
+        public int busCount() {
+            return substationCount * busesPerSubstation;
+        }
+    }
+
+    private static final String IIDM_PREFIX = "iidm";
+    private static final String IIDM_NAMESPACE = "http://www.powsybl.org/schema/iidm/1_7";
+    private static final double NOMINAL_V = 400.0;
+    private static final double LOAD_P = 50.0;
+    private static final double LOAD_Q = 5.0;
+    private static final int GENERATOR_SPACING = 10;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticNetworkGenerator.class);
+
+    private SyntheticNetworkGenerator() {
+        throw new UnsupportedOperationException("SyntheticNetworkGenerator is a utility class and cannot be instantiated");
+    }
+
+    // generates the network in a new temporary .xiidm file (to be deleted by the caller)
+    public static Path writeTempFile(String networkId, Parameters parameters) throws IOException {
+        Path file = Files.createTempFile(networkId + "_", ".xiidm");
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(networkId, parameters, output);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        LOGGER.info("Synthetic network '{}' written in '{}': {} ({} bytes)", networkId, file, parameters, Files.size(file));
+        return file;
+    }
+
+    public static void write(String networkId, Parameters parameters, OutputStream output) throws IOException {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
+            try {
+                writeNetwork(writer, networkId, parameters);
+            } finally {
+                writer.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Cannot write synthetic network " + networkId, e);
+        }
+    }
+
+    private static void writeNetwork(XMLStreamWriter writer, String networkId, Parameters parameters) throws XMLStreamException {
+        int generatorCount = (parameters.substationCount() + GENERATOR_SPACING - 1) / GENERATOR_SPACING;
+        // generators share the load (+2% for the losses)
+        double generatorP = parameters.substationCount() * LOAD_P * 1.02 / generatorCount;
+
+        writer.writeStartDocument("UTF-8", "1.0");
+        writer.setPrefix(IIDM_PREFIX, IIDM_NAMESPACE);
+        writer.writeStartElement(IIDM_PREFIX, "network", IIDM_NAMESPACE);
+        writer.writeNamespace(IIDM_PREFIX, IIDM_NAMESPACE);
+        writer.writeAttribute("id", networkId);
+        writer.writeAttribute("caseDate", "2018-11-08T00:00:00.000Z");
+        writer.writeAttribute("forecastDistance", "0");
+        writer.writeAttribute("sourceFormat", "synthetic");
+        writer.writeAttribute("minimumValidationLevel", "STEADY_STATE_HYPOTHESIS");
+
+        Random random = new Random(parameters.seed());
+        for (int s = 0; s < parameters.substationCount(); s++) {
+            writeSubstation(writer, s, parameters, random, s % GENERATOR_SPACING == 0 ? generatorP : 0);
+        }
+        for (int l = 0; l < parameters.lineCount(); l++) {
+            int substation1;
+            int substation2;
+            if (l < parameters.substationCount() - 1) {
+                // spanning tree: substation l+1 connected to a previous one
+                substation1 = random.nextInt(l + 1);
+                substation2 = l + 1;
+            } else {
+                substation1 = random.nextInt(parameters.substationCount());
+                substation2 = parameters.substationCount() > 1
+                        ? (substation1 + 1 + random.nextInt(parameters.substationCount() - 1)) % parameters.substationCount()
+                        : substation1;
+            }
+            writeLine(writer, l,
+                    substation1, random.nextInt(parameters.busesPerSubstation()),
+                    substation2, random.nextInt(parameters.busesPerSubstation()));
+        }
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+    }
+
+    private static void writeSubstation(XMLStreamWriter writer, int s, Parameters parameters, Random random, double generatorP) throws XMLStreamException {
+        String vlId = voltageLevelId(s);
+        writer.writeStartElement(IIDM_NAMESPACE, "substation");
+        writer.writeAttribute("id", "S" + s);
+        writer.writeStartElement(IIDM_NAMESPACE, "voltageLevel");
+        writer.writeAttribute("id", vlId);
+        writer.writeAttribute("nominalV", String.valueOf(NOMINAL_V));
+        writer.writeAttribute("topologyKind", "BUS_BREAKER");
+
+        writer.writeStartElement(IIDM_NAMESPACE, "busBreakerTopology");
+        for (int b = 0; b < parameters.busesPerSubstation(); b++) {
+            writer.writeEmptyElement(IIDM_NAMESPACE, "bus");
+            writer.writeAttribute("id", busId(s, b));
+        }
+        for (int k = 0; k < parameters.switchesPerSubstation(); k++) {
+            int bus1;
+            int bus2;
+            if (k < parameters.busesPerSubstation() - 1) {
+                // couplers first: all the buses of the substation are connected
+                bus1 = k;
+                bus2 = k + 1;
+            } else {
+                bus1 = random.nextInt(parameters.busesPerSubstation());
+                bus2 = parameters.busesPerSubstation() > 1
+                        ? (bus1 + 1 + random.nextInt(parameters.busesPerSubstation() - 1)) % parameters.busesPerSubstation()
+                        : bus1;
+            }
+            writer.writeEmptyElement(IIDM_NAMESPACE, "switch");
+            writer.writeAttribute("id", vlId + "_BR" + k);
+            writer.writeAttribute("kind", "BREAKER");
+            writer.writeAttribute("retained", "false");
+            writer.writeAttribute("open", "false");
+            writer.writeAttribute("bus1", busId(s, bus1));
+            writer.writeAttribute("bus2", busId(s, bus2));
+        }
+        writer.writeEndElement();
+
+        String firstBus = busId(s, 0);
+        if (generatorP > 0) {
+            writer.writeStartElement(IIDM_NAMESPACE, "generator");
+            writer.writeAttribute("id", "G" + s);
+            writer.writeAttribute("energySource", "OTHER");
+            writer.writeAttribute("minP", "0.0");
+            writer.writeAttribute("maxP", String.valueOf(generatorP * 2));
+            writer.writeAttribute("voltageRegulatorOn", "true");
+            writer.writeAttribute("targetP", String.valueOf(generatorP));
+            writer.writeAttribute("targetV", String.valueOf(NOMINAL_V));
+            writer.writeAttribute("bus", firstBus);
+            writer.writeAttribute("connectableBus", firstBus);
+            writer.writeEmptyElement(IIDM_NAMESPACE, "minMaxReactiveLimits");
+            writer.writeAttribute("minQ", "-1.7976931348623157E308");
+            writer.writeAttribute("maxQ", "1.7976931348623157E308");
+            writer.writeEndElement();
+        }
+        writer.writeEmptyElement(IIDM_NAMESPACE, "load");
+        writer.writeAttribute("id", "L" + s);
+        writer.writeAttribute("loadType", "UNDEFINED");
+        writer.writeAttribute("p0", String.valueOf(LOAD_P));
+        writer.writeAttribute("q0", String.valueOf(LOAD_Q));
+        writer.writeAttribute("bus", firstBus);
+        writer.writeAttribute("connectableBus", firstBus);
+
+        writer.writeEndElement();
+        writer.writeEndElement();
+    }
+
+    private static void writeLine(XMLStreamWriter writer, int l, int substation1, int bus1, int substation2, int bus2) throws XMLStreamException {
+        writer.writeEmptyElement(IIDM_NAMESPACE, "line");
+        writer.writeAttribute("id", "LINE" + l);
+        writer.writeAttribute("r", "0.1");
+        writer.writeAttribute("x", "10.0");
+        writer.writeAttribute("g1", "0.0");
+        writer.writeAttribute("b1", "0.0");
+        writer.writeAttribute("g2", "0.0");
+        writer.writeAttribute("b2", "0.0");
+        writer.writeAttribute("bus1", busId(substation1, bus1));
+        writer.writeAttribute("connectableBus1", busId(substation1, bus1));
+        writer.writeAttribute("voltageLevelId1", voltageLevelId(substation1));
+        writer.writeAttribute("bus2", busId(substation2, bus2));
+        writer.writeAttribute("connectableBus2", busId(substation2, bus2));
+        writer.writeAttribute("voltageLevelId2", voltageLevelId(substation2));
+    }
+
+    private static String voltageLevelId(int s) {
+        return "VL" + s;
+    }
+
+    private static String busId(int s, int b) {
+        return "VL" + s + "_B" + b;
+    }
+}
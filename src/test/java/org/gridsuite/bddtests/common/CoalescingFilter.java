@@ -0,0 +1,130 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Single-flight GETs: identical GET requests (same URI and user) in flight at the same time share one upstream
+// request, and each caller gets its own copy of the response (status, headers and body, read once in memory).
+// A request started after the shared one completed is sent again: nothing is cached.
+// Useful under load, when many virtual users poll the same endpoints (computation status, directory elements).
+// Only the paths matching 'coalesce_gets_paths' (default: small polled responses) are coalesced, the others (ex: study
+// trees, decoded as JSON streams) are passed through; the shared bodies are subject to the codecs in-memory limit.
+// Enabled by coalesce_gets=true in the *_env.properties file; to be the last filter of the web client, so that the
+// timing and tracing filters still see each caller's request.
+public final class CoalescingFilter implements ExchangeFilterFunction {
+
+    private record Key(String uri, String userId, String authorization) {
+    }
+
+    private record Snapshot(HttpStatusCode status, HttpHeaders headers, HttpRequest request, ExchangeStrategies strategies, byte[] body) {
+
+        // a new response (and body buffer) per caller
+        ClientResponse toResponse() {
+            return ClientResponse.create(status, strategies)
+                    .headers(h -> h.addAll(headers))
+                    .request(request)
+                    .body(body.length > 0 ? Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(body))) : Flux.empty())
+                    .build();
+        }
+    }
+
+    private static final String USER_ID_HEADER = "userId";
+    // computation status, directory elements and root directories
+    private static final String DEFAULT_COALESCED_PATHS = ".*/(status|elements|root-directories)";
+
+    // shared by all the web clients
+    private static final Map<Key, Mono<Snapshot>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final LongAdder UPSTREAM_REQUESTS = new LongAdder();
+    private static final LongAdder COALESCED_REQUESTS = new LongAdder();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingFilter.class);
+
+    private final Pattern coalescedPaths;
+
+    CoalescingFilter(Pattern coalescedPaths) {
+        this.coalescedPaths = coalescedPaths;
+    }
+
+    public static CoalescingFilter fromSettings() {
+        String paths = EnvProperties.getInstance().getProp("coalesce_gets_paths");
+        return new CoalescingFilter(Pattern.compile(paths != null ? paths.trim() : DEFAULT_COALESCED_PATHS));
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET || !coalescedPaths.matcher(request.url().getPath()).matches()) {
+            return next.exchange(request);
+        }
+        Key key = new Key(request.url().toString(), request.headers().getFirst(USER_ID_HEADER), request.headers().getFirst(HttpHeaders.AUTHORIZATION));
+        return Mono.defer(() -> {
+            boolean[] leader = {false};
+            Mono<Snapshot> shared = IN_FLIGHT.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return fetch(k, request, next);
+            });
+            (leader[0] ? UPSTREAM_REQUESTS : COALESCED_REQUESTS).increment();
+            return shared.map(Snapshot::toResponse);
+        });
+    }
+
+    // cached until completion only: removed from the in-flight requests as soon as the response is read (or failed),
+    // before the callers are signalled, so that a request started from a completed one's callback is sent again
+    private static Mono<Snapshot> fetch(Key key, ClientRequest request, ExchangeFunction next) {
+        AtomicReference<Mono<Snapshot>> self = new AtomicReference<>();
+        Mono<Snapshot> shared = next.exchange(request)
+                .flatMap(response -> DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), EnvProperties.MAX_IN_MEMORY_SIZE)
+                        .map(buffer -> {
+                            byte[] body = new byte[buffer.readableByteCount()];
+                            buffer.read(body);
+                            DataBufferUtils.release(buffer);
+                            return body;
+                        })
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> new Snapshot(response.statusCode(), HttpHeaders.readOnlyHttpHeaders(response.headers().asHttpHeaders()),
+                                response.request(), response.strategies(), body)))
+                .doOnEach(signal -> IN_FLIGHT.remove(key, self.get()))
+                // cancelled upstream request
+                .doFinally(signal -> IN_FLIGHT.remove(key, self.get()))
+                .cache();
+        self.set(shared);
+        return shared;
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(EnvProperties.getInstance().getProp("coalesce_gets"));
+    }
+
+    public static void logStats() {
+        long upstream = UPSTREAM_REQUESTS.sum();
+        long coalesced = COALESCED_REQUESTS.sum();
+        if (coalesced > 0) {
+            LOGGER.info("Coalesced GETs: {} upstream requests, {} requests served by an identical one in flight", upstream, coalesced);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// the in-flight requests are shared by all the filters: each test uses its own URIs
+class CoalescingFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    // default coalesced paths (no platform loaded)
+    private final CoalescingFilter filter = CoalescingFilter.fromSettings();
+    private final AtomicInteger exchanges = new AtomicInteger();
+    // the fake server answers once opened
+    private final Sinks.Empty<Void> gate = Sinks.empty();
+
+    private final ExchangeFunction server = request -> {
+        int count = exchanges.incrementAndGet();
+        return gate.asMono().then(Mono.fromCallable(() -> ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE)
+                .body(request.method() + " " + request.url().getPath() + " #" + count)
+                .build()));
+    };
+
+    private static ClientRequest request(HttpMethod method, String path, String userId) {
+        return ClientRequest.create(method, URI.create("http://study-server" + path))
+                .header("userId", userId)
+                .build();
+    }
+
+    private CompletableFuture<String> send(ClientRequest request) {
+        return filter.filter(request, server).flatMap(r -> r.bodyToMono(String.class)).toFuture();
+    }
+
+    private static String get(CompletableFuture<String> future) throws Exception {
+        return future.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    void concurrentIdenticalGetsShareOneRequest() throws Exception {
+        CompletableFuture<String> first = send(request(HttpMethod.GET, "/v1/studies/s1/loadflow/status", "user1"));
+        CompletableFuture<String> second = send(request(HttpMethod.GET, "/v1/studies/s1/loadflow/status", "user1"));
+        gate.tryEmitEmpty();
+
+        // each caller reads its own copy of the body
+        assertEquals("GET /v1/studies/s1/loadflow/status #1", get(first));
+        assertEquals("GET /v1/studies/s1/loadflow/status #1", get(second));
+        assertEquals(1, exchanges.get());
+    }
+
+    @Test
+    void getsOfDifferentUsersAreNotShared() throws Exception {
+        CompletableFuture<String> first = send(request(HttpMethod.GET, "/v1/studies/s2/loadflow/status", "user1"));
+        CompletableFuture<String> second = send(request(HttpMethod.GET, "/v1/studies/s2/loadflow/status", "user2"));
+        gate.tryEmitEmpty();
+
+        get(first);
+        get(second);
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void otherMethodsAreNotShared() throws Exception {
+        CompletableFuture<String> first = send(request(HttpMethod.POST, "/v1/studies/s3/loadflow/status", "user1"));
+        CompletableFuture<String> second = send(request(HttpMethod.POST, "/v1/studies/s3/loadflow/status", "user1"));
+        gate.tryEmitEmpty();
+
+        assertEquals("POST /v1/studies/s3/loadflow/status #1", get(first));
+        assertEquals("POST /v1/studies/s3/loadflow/status #2", get(second));
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void otherPathsAreNotShared() throws Exception {
+        CompletableFuture<String> first = send(request(HttpMethod.GET, "/v1/studies/s5/tree", "user1"));
+        CompletableFuture<String> second = send(request(HttpMethod.GET, "/v1/studies/s5/tree", "user1"));
+        gate.tryEmitEmpty();
+
+        assertEquals("GET /v1/studies/s5/tree #1", get(first));
+        assertEquals("GET /v1/studies/s5/tree #2", get(second));
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void completedRequestsAreNotCached() throws Exception {
+        gate.tryEmitEmpty();
+        ClientRequest request = request(HttpMethod.GET, "/v1/studies/s4/loadflow/status", "user1");
+
+        assertEquals("GET /v1/studies/s4/loadflow/status #1", get(send(request)));
+        assertEquals("GET /v1/studies/s4/loadflow/status #2", get(send(request)));
+        // sent from the completion of a shared request: not joined to it
+        String chained = filter.filter(request, server)
+                .flatMap(r -> r.bodyToMono(String.class))
+                .flatMap(body -> filter.filter(request, server).flatMap(r -> r.bodyToMono(String.class)))
+                .block(TIMEOUT);
+        assertEquals("GET /v1/studies/s4/loadflow/status #4", chained);
+    }
+}
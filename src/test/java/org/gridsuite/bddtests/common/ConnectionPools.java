@@ -0,0 +1,147 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One Reactor Netty connection pool per micro-service, shared by all the WebClients targeting it.
+// Pool settings come from the *_env.properties file:
+//   pool_<setting>=value                 default for all micro-services
+//   <micro_service>_pool_<setting>=value override for one micro-service (ex: study_server_pool_max_connections=100)
+public final class ConnectionPools {
+
+    public static ConnectionPools getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final ConnectionPools INSTANCE = new ConnectionPools();
+    }
+
+    public record PoolGauge(String poolName, String remoteAddress, int active, int idle, int pendingAcquires, int allocated, int maxConnections) {
+        @Override
+        public String toString() {
+            return "Pool " + poolName + " [" + remoteAddress + "] active=" + active + " idle=" + idle
+                    + " pending=" + pendingAcquires + " allocated=" + allocated + "/" + maxConnections;
+        }
+    }
+
+    private record PoolKey(String poolName, String id, String remoteAddress) {
+    }
+
+
+    // defaults, when not set in the properties file
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final int DEFAULT_PENDING_ACQUIRE_MAX_COUNT = -1; // unbounded
+    private static final long DEFAULT_PENDING_ACQUIRE_TIMEOUT_MS = 45000;
+    private static final long DEFAULT_MAX_IDLE_TIME_MS = 30000;
+    private static final long DEFAULT_MAX_LIFE_TIME_MS = 300000;
+    private static final long DEFAULT_EVICT_IN_BACKGROUND_MS = 30000;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 10000;
+
+    private final EnumMap<EnvProperties.MicroService, HttpClient> httpClients = new EnumMap<>(EnvProperties.MicroService.class);
+    private final EnumMap<EnvProperties.MicroService, ConnectionProvider> providers = new EnumMap<>(EnvProperties.MicroService.class);
+    private final Map<PoolKey, ConnectionPoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPools.class);
+
+    private ConnectionPools() {
+    }
+
+    public synchronized HttpClient getHttpClient(EnvProperties.MicroService ms) {
+        return httpClients.computeIfAbsent(ms, this::createHttpClient);
+    }
+
+    private HttpClient createHttpClient(EnvProperties.MicroService ms) {
+        String poolName = "bddtests-" + ms.name().toLowerCase(Locale.ROOT);
+        int maxConnections = getIntSetting(ms, "max_connections", DEFAULT_MAX_CONNECTIONS);
+        ConnectionProvider provider = ConnectionProvider.builder(poolName)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(getIntSetting(ms, "pending_acquire_max_count", DEFAULT_PENDING_ACQUIRE_MAX_COUNT))
+                .pendingAcquireTimeout(Duration.ofMillis(getLongSetting(ms, "pending_acquire_timeout_ms", DEFAULT_PENDING_ACQUIRE_TIMEOUT_MS)))
+                .maxIdleTime(Duration.ofMillis(getLongSetting(ms, "max_idle_time_ms", DEFAULT_MAX_IDLE_TIME_MS)))
+                .maxLifeTime(Duration.ofMillis(getLongSetting(ms, "max_life_time_ms", DEFAULT_MAX_LIFE_TIME_MS)))
+                .evictInBackground(Duration.ofMillis(getLongSetting(ms, "evict_in_background_ms", DEFAULT_EVICT_IN_BACKGROUND_MS)))
+                .metrics(true, () -> new GaugeRegistrar())
+                .build();
+        providers.put(ms, provider);
+        LOGGER.info("Connection pool '{}' created (max connections: {})", poolName, maxConnections);
+
+        return HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, getIntSetting(ms, "connect_timeout_ms", DEFAULT_CONNECT_TIMEOUT_MS))
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(getBooleanSetting(ms, "keep_alive", true));
+    }
+
+    public List<PoolGauge> getGauges() {
+        List<PoolGauge> gauges = new ArrayList<>();
+        poolMetrics.forEach((key, metrics) -> gauges.add(new PoolGauge(key.poolName(), key.remoteAddress(),
+                metrics.acquiredSize(), metrics.idleSize(), metrics.pendingAcquireSize(),
+                metrics.allocatedSize(), metrics.maxAllocatedSize())));
+        return gauges;
+    }
+
+    public void logGauges() {
+        getGauges().forEach(g -> LOGGER.info("{}", g));
+    }
+
+    public synchronized void dispose() {
+        providers.values().forEach(ConnectionProvider::dispose);
+        providers.clear();
+        httpClients.clear();
+        poolMetrics.clear();
+    }
+
+    // --------------------------------------------------------
+    private String getSetting(EnvProperties.MicroService ms, String name) {
+        EnvProperties env = EnvProperties.getInstance();
+        String value = env.getProp(ms.name().toLowerCase(Locale.ROOT) + "_pool_" + name);
+        return value != null ? value : env.getProp("pool_" + name);
+    }
+
+    private int getIntSetting(EnvProperties.MicroService ms, String name, int defaultValue) {
+        String value = getSetting(ms, name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private long getLongSetting(EnvProperties.MicroService ms, String name, long defaultValue) {
+        String value = getSetting(ms, name);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    private boolean getBooleanSetting(EnvProperties.MicroService ms, String name, boolean defaultValue) {
+        String value = getSetting(ms, name);
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
+
+    // receive the pool metrics of each remote address, to expose them as gauges
+    private final class GaugeRegistrar implements ConnectionProvider.MeterRegistrar {
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            poolMetrics.put(new PoolKey(poolName, id, String.valueOf(remoteAddress)), metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            poolMetrics.remove(new PoolKey(poolName, id, String.valueOf(remoteAddress)));
+        }
+    }
+}
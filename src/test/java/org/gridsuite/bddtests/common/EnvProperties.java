@@ -11,35 +11,47 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTParser;
+import org.gridsuite.bddtests.metrics.HttpTimingFilter;
+import org.gridsuite.bddtests.stub.StubServer;
+import org.gridsuite.bddtests.tracing.TracingFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.ParseException;
-import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 public final class EnvProperties {
 
-    public static synchronized EnvProperties getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new EnvProperties();
-        }
-        return INSTANCE;
+    // lock-free lazy singleton (holder idiom), read on every request of every scenario thread
+    public static EnvProperties getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final EnvProperties INSTANCE = new EnvProperties();
     }
 
     public String getTmpRootDir() {
         return tmpRootDir;
     }
 
+    // name of the loaded *_env.properties (local, demo...), null before init
+    public String getPlatformName() {
+        return loadedEnvironmentName;
+    }
+
     public enum MicroService {
         ACTION_SERVER,
         CASE_SERVER,
@@ -54,13 +66,16 @@ public final class EnvProperties {
         STUDY_SERVER
     }
 
-    private static EnvProperties INSTANCE = null;
+    // in-memory limit of the decoded responses (and of the coalesced ones)
+    static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
     private final String version = "v1";
-    private Properties props = null;
-    private String userName = null;
-    private String token = null;
+    private volatile Properties props = null;
+    private volatile String userName = null;
+    private volatile String token = null;
+    private volatile String loadedEnvironmentName = null;
     private String tmpRootDir = "root_bdd";
-    private final EnumMap<MicroService, String> msUrlMap = new EnumMap<>(MicroService.class);
+    private final Map<MicroService, String> msUrlMap = new ConcurrentHashMap<>();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EnvProperties.class);
 
@@ -99,8 +114,13 @@ public final class EnvProperties {
         return propValue;
     }
 
+    // null when not set, or before init (the callers then use their default)
     public String getProp(String name) {
-        String propValue = props.getProperty(name, null);
+        Properties loadedProps = props;
+        if (loadedProps == null) {
+            return null;
+        }
+        String propValue = loadedProps.getProperty(name, null);
         if (propValue != null && propValue.isEmpty()) {
             propValue = null;
         }
@@ -184,7 +204,11 @@ public final class EnvProperties {
         return null;
     }
 
-    public boolean init(String environmentName) {
+    // called by the background of each scenario, possibly by parallel scenarios: loaded once per platform
+    public synchronized boolean init(String environmentName) {
+        if (environmentName.equals(loadedEnvironmentName)) {
+            return true;
+        }
         boolean good = false;
         String propsFileName = environmentName + "_env.properties";
         try (InputStream input = EnvProperties.class.getClassLoader().getResourceAsStream(propsFileName)) {
@@ -200,32 +224,28 @@ public final class EnvProperties {
                 String wsHost = getWsHost();
                 assertNotNull(wsHost, "Cannot find ws_hostname property");
 
+                if (getProp("stub_port") != null) {
+                    // embedded stand-in servers (see stub_env.properties)
+                    StubServer.startEmbedded(StubServer.Settings.fromProperties(this::getProp));
+                }
+
                 if (!useToken()) {
                     LOGGER.info("No Bearer used, username property = {}", getUserName());
-                    msUrlMap.put(MicroService.ACTION_SERVER, host + ":5022");
-                    msUrlMap.put(MicroService.CASE_SERVER, host + ":5000");
-                    msUrlMap.put(MicroService.CONFIG_SERVER, host + ":5025");
-                    msUrlMap.put(MicroService.DIRECTORY_NOTIFICATION_SERVER, wsHost + ":5004");
-                    msUrlMap.put(MicroService.DIRECTORY_SERVER, host + ":5026");
-                    msUrlMap.put(MicroService.EXPLORE_SERVER, host + ":5029");
-                    msUrlMap.put(MicroService.FILTER_SERVER, host + ":5027");
-                    msUrlMap.put(MicroService.MODIFICATION_SERVER, host + ":5007");
-                    msUrlMap.put(MicroService.NETWORK_CONVERSION_SERVER, host + ":5003");
-                    msUrlMap.put(MicroService.STUDY_NOTIFICATION_SERVER, wsHost + ":5009");
-                    msUrlMap.put(MicroService.STUDY_SERVER, host + ":5001");
+                } else if ("jwt" .equalsIgnoreCase(getTokenMode())) {
+                    String bearer = getBearer();
+                    userName = getUserFromBearer(bearer);
+                    assertNotNull(userName, "Wrong JWT bearer/token, cannot extract username from it");
+                    token = bearer;
+                    LOGGER.info("Using JWT Bearer, username from token = {}", getUserName());
                 } else {
-                    if ("jwt" .equalsIgnoreCase(getTokenMode())) {
-                        String bearer = getBearer();
-                        userName = getUserFromBearer(bearer);
-                        assertNotNull(userName, "Wrong JWT bearer/token, cannot extract username from it");
-                        token = bearer;
-                        LOGGER.info("Using JWT Bearer, username from token = {}", getUserName());
-                    } else {
-                        token = getAccessToken();
-                        assertNotNull(token, "Cannot get access token from '" + getAuthUrl() + "' for user '" + getClientId() + "'");
-                        userName = getClientId();
-                        LOGGER.info("Using access token Bearer, username = {}", getClientId());
-                    }
+                    token = getAccessToken();
+                    assertNotNull(token, "Cannot get access token from '" + getAuthUrl() + "' for user '" + getClientId() + "'");
+                    userName = getClientId();
+                    LOGGER.info("Using access token Bearer, username = {}", getClientId());
+                }
+
+                // services reached through a gateway (always with a token), or directly on their ports
+                if (useToken() || "gateway".equalsIgnoreCase(getProp("service_routing"))) {
                     msUrlMap.put(MicroService.ACTION_SERVER, host + "/actions");
                     msUrlMap.put(MicroService.CASE_SERVER, host + "/case");
                     msUrlMap.put(MicroService.CONFIG_SERVER, host + "/config");
@@ -237,7 +257,20 @@ public final class EnvProperties {
                     msUrlMap.put(MicroService.NETWORK_CONVERSION_SERVER, host + "/network-conversion");
                     msUrlMap.put(MicroService.STUDY_NOTIFICATION_SERVER, wsHost + "/study-notification");
                     msUrlMap.put(MicroService.STUDY_SERVER, host + "/study");
+                } else {
+                    msUrlMap.put(MicroService.ACTION_SERVER, host + ":5022");
+                    msUrlMap.put(MicroService.CASE_SERVER, host + ":5000");
+                    msUrlMap.put(MicroService.CONFIG_SERVER, host + ":5025");
+                    msUrlMap.put(MicroService.DIRECTORY_NOTIFICATION_SERVER, wsHost + ":5004");
+                    msUrlMap.put(MicroService.DIRECTORY_SERVER, host + ":5026");
+                    msUrlMap.put(MicroService.EXPLORE_SERVER, host + ":5029");
+                    msUrlMap.put(MicroService.FILTER_SERVER, host + ":5027");
+                    msUrlMap.put(MicroService.MODIFICATION_SERVER, host + ":5007");
+                    msUrlMap.put(MicroService.NETWORK_CONVERSION_SERVER, host + ":5003");
+                    msUrlMap.put(MicroService.STUDY_NOTIFICATION_SERVER, wsHost + ":5009");
+                    msUrlMap.put(MicroService.STUDY_SERVER, host + ":5001");
                 }
+                loadedEnvironmentName = environmentName;
                 good = true;
             }
         } catch (IOException ex) {
@@ -251,11 +284,21 @@ public final class EnvProperties {
 
         WebClient.Builder builder = WebClient.builder()
                 .baseUrl(serverUrl + "/" + version + "/")
+                // shared and tuned connection pool, per micro-service
+                .clientConnector(new ReactorClientHttpConnector(ConnectionPools.getInstance().getHttpClient(ms)))
+                // per endpoint latencies (see StepLatencyPlugin)
+                .filter(new HttpTimingFilter(ms.name().toLowerCase(Locale.ROOT)))
+                .filter(new TracingFilter(ms.name().toLowerCase(Locale.ROOT)))
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
                 // to avoid DataBufferLimitException while receiving heavy response
+                // (heavy responses should rather be decoded with JsonStreams, which is not subject to this limit)
                 .codecs(codecs -> codecs
                         .defaultCodecs()
-                        .maxInMemorySize(16 * 1024 * 1024));
+                        .maxInMemorySize(MAX_IN_MEMORY_SIZE));
+        if (CoalescingFilter.isEnabled()) {
+            // after the timing and tracing filters: each caller is still measured
+            builder.filter(CoalescingFilter.fromSettings());
+        }
 
         String localToken = getToken();
         if (localToken == null) {
@@ -0,0 +1,252 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// Streaming JSON decoding of a response body: the DataBuffers are fed to a non-blocking Jackson parser
+// as they arrive, and a TokenHandler keeps only what the caller needs (the body is never fully in memory).
+public final class JsonStreams {
+    private JsonStreams() {
+        throw new UnsupportedOperationException("JsonStreams is a utility class and cannot be instantiated");
+    }
+
+    public interface TokenHandler<T> {
+        // return true when the wanted data is complete (the remaining input is then not parsed)
+        boolean onToken(JsonParser parser, JsonToken token) throws IOException;
+
+        T getResult();
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final JsonNodeFactory NODE_FACTORY = JsonNodeFactory.instance;
+
+    public static <T> Mono<T> decode(Flux<DataBuffer> body, Supplier<? extends TokenHandler<T>> handlerSupplier) {
+        return Mono.defer(() -> {
+            StreamDecoder<T> decoder = new StreamDecoder<>(handlerSupplier.get());
+            // once the handler is done, the rest of the body is still read (released without parsing): cancelling the body
+            // would close the connection instead of giving it back to the pool
+            return body.doOnNext(decoder::feed)
+                    .then(Mono.fromCallable(decoder::finish));
+        });
+    }
+
+    // first scalar value of a field with this name (any depth)
+    public static Supplier<TokenHandler<String>> findField(String fieldName) {
+        return () -> new FieldHandler(fieldName);
+    }
+
+    // value of 'wantedKey' in the first object having 'matchKey' equal (ignoring case) to 'matchValue' (any depth)
+    public static Supplier<TokenHandler<String>> findInTree(String matchKey, String matchValue, String wantedKey) {
+        return () -> new TreeSearchHandler(matchKey, matchValue, wantedKey);
+    }
+
+    // rebuild a tree made only of the given fields (and their content), all other fields are skipped
+    public static Supplier<TokenHandler<JsonNode>> project(String... keptFields) {
+        Set<String> fields = Set.of(keptFields);
+        return () -> new ProjectionHandler(fields);
+    }
+
+    // --------------------------------------------------------
+    private static final class StreamDecoder<T> {
+        private final TokenHandler<T> handler;
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private boolean done = false;
+
+        StreamDecoder(TokenHandler<T> handler) {
+            this.handler = handler;
+            try {
+                parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        void feed(DataBuffer buffer) {
+            try {
+                if (!done) {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    feeder.feedInput(bytes, 0, bytes.length);
+                    parseAvailableTokens();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                DataBufferUtils.release(buffer);
+            }
+        }
+
+        T finish() throws IOException {
+            if (!done) {
+                feeder.endOfInput();
+                parseAvailableTokens();
+            }
+            parser.close();
+            return handler.getResult();
+        }
+
+        private void parseAvailableTokens() throws IOException {
+            JsonToken token;
+            while (!done && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                done = handler.onToken(parser, token);
+            }
+        }
+    }
+
+    private static final class FieldHandler implements TokenHandler<String> {
+        private final String fieldName;
+        private String result = null;
+
+        FieldHandler(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        public boolean onToken(JsonParser parser, JsonToken token) throws IOException {
+            if (token.isScalarValue() && parser.getParsingContext().inObject() && fieldName.equals(parser.currentName())) {
+                result = token == JsonToken.VALUE_NULL ? null : parser.getText();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public String getResult() {
+            return result;
+        }
+    }
+
+    private static final class TreeSearchHandler implements TokenHandler<String> {
+        private final String matchKey;
+        private final String matchValue;
+        private final String wantedKey;
+        // for each opened object: [value of matchKey, value of wantedKey] (fields can come in any order)
+        private final Deque<String[]> objects = new ArrayDeque<>();
+        private String result = null;
+
+        TreeSearchHandler(String matchKey, String matchValue, String wantedKey) {
+            this.matchKey = matchKey;
+            this.matchValue = matchValue;
+            this.wantedKey = wantedKey;
+        }
+
+        @Override
+        public boolean onToken(JsonParser parser, JsonToken token) throws IOException {
+            if (token == JsonToken.START_OBJECT) {
+                objects.push(new String[2]);
+            } else if (token == JsonToken.END_OBJECT) {
+                objects.pop();
+            } else if (token.isScalarValue() && parser.getParsingContext().inObject() && !objects.isEmpty()) {
+                String name = parser.currentName();
+                String[] current = objects.peek();
+                if (matchKey.equals(name)) {
+                    current[0] = parser.getText();
+                } else if (wantedKey.equals(name)) {
+                    current[1] = parser.getText();
+                }
+                if (current[0] != null && current[1] != null && current[0].equalsIgnoreCase(matchValue)) {
+                    result = current[1];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String getResult() {
+            return result;
+        }
+    }
+
+    private static final class ProjectionHandler implements TokenHandler<JsonNode> {
+        private final Set<String> keptFields;
+        private final Deque<ContainerNode<?>> containers = new ArrayDeque<>();
+        private JsonNode root = null;
+        private int skipDepth = 0;
+
+        ProjectionHandler(Set<String> keptFields) {
+            this.keptFields = keptFields;
+        }
+
+        @Override
+        public boolean onToken(JsonParser parser, JsonToken token) throws IOException {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) {
+                    skipDepth++;
+                } else if (token.isStructEnd()) {
+                    skipDepth--;
+                }
+                return false;
+            }
+            if (token == JsonToken.FIELD_NAME) {
+                return false;
+            }
+            if (token.isStructEnd()) {
+                containers.pop();
+                return containers.isEmpty();
+            }
+            ContainerNode<?> parent = containers.peek();
+            String fieldName = parent instanceof ObjectNode ? parser.currentName() : null;
+            if (fieldName != null && !keptFields.contains(fieldName)) {
+                if (token.isStructStart()) {
+                    skipDepth = 1;
+                }
+                return false;
+            }
+            JsonNode node = switch (token) {
+                case START_OBJECT -> NODE_FACTORY.objectNode();
+                case START_ARRAY -> NODE_FACTORY.arrayNode();
+                case VALUE_STRING -> NODE_FACTORY.textNode(parser.getText());
+                case VALUE_NUMBER_INT -> parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER
+                        ? NODE_FACTORY.numberNode(parser.getBigIntegerValue())
+                        : NODE_FACTORY.numberNode(parser.getLongValue());
+                case VALUE_NUMBER_FLOAT -> NODE_FACTORY.numberNode(parser.getDoubleValue());
+                case VALUE_TRUE, VALUE_FALSE -> NODE_FACTORY.booleanNode(token == JsonToken.VALUE_TRUE);
+                default -> NODE_FACTORY.nullNode();
+            };
+            if (parent instanceof ObjectNode objectParent) {
+                objectParent.set(fieldName, node);
+            } else if (parent instanceof ArrayNode arrayParent) {
+                arrayParent.add(node);
+            } else {
+                root = node;
+            }
+            if (token.isStructStart()) {
+                containers.push((ContainerNode<?>) node);
+                return false;
+            }
+            return parent == null;
+        }
+
+        @Override
+        public JsonNode getResult() {
+            return root;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonStreamsTest {
+
+    // small chunks: tokens are split across buffers
+    private static final int CHUNK_SIZE = 5;
+
+    private static final String TREE = """
+            {"id": "root-id", "name": "Root", "type": "ROOT", "children": [
+              {"name": "N1", "id": "n1-id", "children": []},
+              {"id": "n2-id", "name": "N2", "children": [
+                {"id": "n3-id", "extra": {"name": "not a node", "id": "extra-id"}, "name": "n3"}
+              ]}
+            ]}
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static Flux<DataBuffer> chunks(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return Flux.range(0, (bytes.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+                .map(i -> {
+                    int start = i * CHUNK_SIZE;
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(bytes, start, Math.min(CHUNK_SIZE, bytes.length - start)));
+                });
+    }
+
+    @Test
+    void findInTreeMatchesFieldsInAnyOrderAndIgnoringCase() {
+        assertEquals("n1-id", JsonStreams.decode(chunks(TREE), JsonStreams.findInTree("name", "N1", "id")).block());
+        assertEquals("n2-id", JsonStreams.decode(chunks(TREE), JsonStreams.findInTree("name", "N2", "id")).block());
+        assertEquals("n3-id", JsonStreams.decode(chunks(TREE), JsonStreams.findInTree("name", "N3", "id")).block());
+        assertEquals("extra-id", JsonStreams.decode(chunks(TREE), JsonStreams.findInTree("name", "not a node", "id")).block());
+    }
+
+    @Test
+    void findInTreeReturnsNullWhenNotFound() {
+        assertNull(JsonStreams.decode(chunks(TREE), JsonStreams.findInTree("name", "N4", "id")).block());
+    }
+
+    @Test
+    void findFieldReturnsFirstScalarValue() {
+        assertEquals("ROOT", JsonStreams.decode(chunks(TREE), JsonStreams.findField("type")).block());
+        assertEquals("root-id", JsonStreams.decode(chunks(TREE), JsonStreams.findField("id")).block());
+        assertNull(JsonStreams.decode(chunks("[{\"rootNetworkUuid\": null}]"), JsonStreams.findField("rootNetworkUuid")).block());
+        assertNull(JsonStreams.decode(chunks("[]"), JsonStreams.findField("rootNetworkUuid")).block());
+    }
+
+    @Test
+    void projectKeepsOnlyTheGivenFields() throws Exception {
+        JsonNode projected = JsonStreams.decode(chunks(TREE), JsonStreams.project("id", "name", "children")).block();
+        JsonNode expected = mapper.readTree("""
+                {"id": "root-id", "name": "Root", "children": [
+                  {"name": "N1", "id": "n1-id", "children": []},
+                  {"id": "n2-id", "name": "N2", "children": [{"id": "n3-id", "name": "n3"}]}
+                ]}
+                """);
+        assertEquals(expected, projected);
+    }
+
+    @Test
+    void projectKeepsScalarTypes() {
+        String json = "[{\"name\": \"p\", \"possibleValues\": [1, 2.5, true, null, \"s\"], \"description\": {\"name\": \"skipped\"}}]";
+        JsonNode projected = JsonStreams.decode(chunks(json), JsonStreams.project("name", "possibleValues")).block();
+        assertNotNull(projected);
+        assertEquals(1, projected.size());
+        JsonNode parameter = projected.get(0);
+        assertEquals("p", parameter.get("name").asText());
+        assertFalse(parameter.has("description"));
+        JsonNode values = parameter.get("possibleValues");
+        assertEquals(1L, values.get(0).longValue());
+        assertEquals(2.5, values.get(1).doubleValue());
+        assertTrue(values.get(2).booleanValue());
+        assertTrue(values.get(3).isNull());
+        assertEquals("s", values.get(4).textValue());
+    }
+
+    @Test
+    void bodyIsDrainedAfterAnEarlyMatch() {
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicInteger readBuffers = new AtomicInteger();
+        Flux<DataBuffer> body = chunks(TREE)
+                .doOnNext(b -> readBuffers.incrementAndGet())
+                .doOnCancel(() -> cancelled.set(true));
+        assertEquals("root-id", JsonStreams.decode(body, JsonStreams.findField("id")).block());
+        assertFalse(cancelled.get(), "the response body must not be cancelled (connection not returned to the pool)");
+        assertEquals((TREE.getBytes(StandardCharsets.UTF_8).length + CHUNK_SIZE - 1) / CHUNK_SIZE, readBuffers.get());
+    }
+}
@@ -0,0 +1,133 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Headers of a notification message, read with a streaming parser: the payload and the nested header
+// objects are skipped, and no JSON tree is built. Header values are kept as strings (or lists of strings).
+public final class Notification {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String HEADERS = "headers";
+
+    private final Map<String, Object> headers;
+    private final long receivedAtNanos;
+    // embedded JSON headers, parsed on first use only
+    private final Map<String, List<String>> embeddedValues = new HashMap<>();
+
+    private Notification(Map<String, Object> headers, long receivedAtNanos) {
+        this.headers = headers;
+        this.receivedAtNanos = receivedAtNanos;
+    }
+
+    public static Notification parse(InputStream input) throws IOException {
+        long receivedAtNanos = System.nanoTime();
+        Map<String, Object> headers = new HashMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(input)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken token = parser.nextToken();
+                    if (HEADERS.equals(field) && token == JsonToken.START_OBJECT) {
+                        readHeaders(parser, headers);
+                        break; // the rest of the message is not needed
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new Notification(headers, receivedAtNanos);
+    }
+
+    private static void readHeaders(JsonParser parser, Map<String, Object> headers) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                List<String> values = new ArrayList<>();
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    if (token.isScalarValue()) {
+                        values.add(parser.getText());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                headers.put(name, values);
+            } else if (token != null && token.isScalarValue()) {
+                if (token != JsonToken.VALUE_NULL) {
+                    headers.put(name, parser.getText());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // scalar header value, or first value of an array header
+    public String getHeader(String name) {
+        Object value = headers.get(name);
+        if (value instanceof List<?> values) {
+            return values.isEmpty() ? null : (String) values.get(0);
+        }
+        return (String) value;
+    }
+
+    public List<String> getHeaderValues(String name) {
+        Object value = headers.get(name);
+        if (value instanceof List<?> values) {
+            return values.stream().map(String.class::cast).toList();
+        }
+        return value != null ? List.of((String) value) : List.of();
+    }
+
+    // values of 'fieldName' (any depth) in a header holding a JSON document as a string (ex: directoriesInfos)
+    public synchronized List<String> getEmbeddedHeaderValues(String headerName, String fieldName) {
+        return embeddedValues.computeIfAbsent(headerName + "/" + fieldName, k -> readEmbeddedValues(getHeader(headerName), fieldName));
+    }
+
+    public String getFirstEmbeddedHeaderValue(String headerName, String fieldName) {
+        List<String> values = getEmbeddedHeaderValues(headerName, fieldName);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private static List<String> readEmbeddedValues(String json, String fieldName) {
+        List<String> values = new ArrayList<>();
+        if (json == null) {
+            return values;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token.isScalarValue() && parser.getParsingContext().inObject() && fieldName.equals(parser.currentName())) {
+                    values.add(parser.getText());
+                }
+            }
+        } catch (IOException e) {
+            // invalid embedded document: no value
+        }
+        return values;
+    }
+
+    public long getReceivedAtNanos() {
+        return receivedAtNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Notification " + headers;
+    }
+}
@@ -0,0 +1,234 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+// Long-lived websocket sessions on the notification servers, shared by all the waiters.
+// There is one socket per notification URI (server, user and updateType are part of it), opened on first use
+// and re-opened if the server closes it. Each message headers are parsed once and offered to all the registered waiters.
+// Sockets are reference counted (waiters and listeners): a socket without any of them is closed after an idle delay,
+// so that per-study sockets do not pile up in long-running JVMs (load tests, supervision daemon).
+public final class NotificationHub {
+
+    public static NotificationHub getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final NotificationHub INSTANCE = new NotificationHub();
+    }
+
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(1);
+    // short waits follow each other (polls, successive steps on the same study): the socket is kept a while
+    private static final Duration IDLE_CLOSE_DELAY = Duration.ofSeconds(30);
+    private static final String HEADER_USER_ID = "userId";
+
+    private final ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+    private final Map<URI, Channel> channels = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationHub.class);
+
+    private NotificationHub() {
+    }
+
+    // the returned future completes with the matching notifications, once 'expectedCount' of them are received.
+    // Cancel it to unregister the waiter.
+    public CompletableFuture<List<Notification>> register(URI notificationServerUri, Predicate<Notification> matcher, int expectedCount) {
+        Channel channel = acquire(notificationServerUri);
+        Waiter waiter = new Waiter(matcher, expectedCount);
+        channel.waiters.add(waiter);
+        waiter.future.whenComplete((notifications, e) -> {
+            channel.waiters.remove(waiter);
+            release(channel);
+        });
+        return waiter.future;
+    }
+
+    // persistent listener, receiving all the notifications of this URI (before the waiters). Dispose to unregister.
+    public Disposable addListener(URI notificationServerUri, Consumer<Notification> listener) {
+        Channel channel = acquire(notificationServerUri);
+        channel.listeners.add(listener);
+        return () -> {
+            if (channel.listeners.remove(listener)) {
+                release(channel);
+            }
+        };
+    }
+
+    // the user count is updated under the map lock of the URI, so that an idle channel cannot be removed while acquired
+    private Channel acquire(URI notificationServerUri) {
+        Channel channel = channels.compute(notificationServerUri, (uri, existing) -> {
+            Channel c = existing != null ? existing : new Channel(uri);
+            c.users++;
+            return c;
+        });
+        channel.start();
+        return channel;
+    }
+
+    private void release(Channel channel) {
+        boolean[] idle = {false};
+        channels.computeIfPresent(channel.uri, (uri, c) -> {
+            if (c == channel) {
+                c.users--;
+                idle[0] = c.users == 0;
+            }
+            return c;
+        });
+        if (idle[0]) {
+            Mono.delay(IDLE_CLOSE_DELAY).subscribe(t -> closeIfIdle(channel));
+        }
+    }
+
+    private void closeIfIdle(Channel channel) {
+        channels.computeIfPresent(channel.uri, (uri, c) -> {
+            if (c == channel && c.users == 0) {
+                LOGGER.info("Websocket closed on '{}' (idle)", uri.getPath());
+                c.close();
+                return null;
+            }
+            return c;
+        });
+    }
+
+    // only waits the first time (or after a disconnection), the socket is then kept open while it has users
+    public void awaitConnected(URI notificationServerUri, Duration timeout) throws InterruptedException, ExecutionException, TimeoutException {
+        Channel channel = channels.get(notificationServerUri);
+        if (channel == null) {
+            throw new IllegalStateException("No websocket registered for " + notificationServerUri);
+        }
+        channel.connected.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // non-blocking variant, completes when the current session is opened
+    public Mono<Void> connected(URI notificationServerUri) {
+        return Mono.defer(() -> {
+            Channel channel = channels.get(notificationServerUri);
+            if (channel == null) {
+                return Mono.error(new IllegalStateException("No websocket registered for " + notificationServerUri));
+            }
+            // a copy: cancelling the subscription must not cancel the channel future
+            return Mono.fromFuture(channel.connected.copy());
+        });
+    }
+
+    public void close() {
+        channels.values().forEach(Channel::close);
+        channels.clear();
+    }
+
+    // --------------------------------------------------------
+    private static final class Waiter {
+        private final Predicate<Notification> matcher;
+        private final int expectedCount;
+        private final List<Notification> matched = new ArrayList<>();
+        private final CompletableFuture<List<Notification>> future = new CompletableFuture<>();
+
+        Waiter(Predicate<Notification> matcher, int expectedCount) {
+            this.matcher = matcher;
+            this.expectedCount = expectedCount;
+        }
+
+        synchronized void offer(Notification notification) {
+            if (!future.isDone() && matcher.test(notification)) {
+                matched.add(notification);
+                if (matched.size() >= expectedCount) {
+                    future.complete(List.copyOf(matched));
+                }
+            }
+        }
+    }
+
+    private final class Channel {
+        private final URI uri;
+        private final List<Waiter> waiters = new CopyOnWriteArrayList<>();
+        private final List<Consumer<Notification>> listeners = new CopyOnWriteArrayList<>();
+        private volatile CompletableFuture<Void> connected = new CompletableFuture<>();
+        private volatile boolean closed = false;
+        private Disposable connection = null;
+        // waiters + listeners, guarded by the channels map (see acquire)
+        private int users = 0;
+
+        Channel(URI uri) {
+            this.uri = uri;
+        }
+
+        synchronized void start() {
+            if (connection != null) {
+                return;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HEADER_USER_ID, EnvProperties.getInstance().getUserName());
+            connection = Mono.defer(() -> client.execute(uri, headers, this::handleSession))
+                    .onErrorResume(e -> {
+                        LOGGER.warn("Websocket error on '{}': {}", uri.getPath(), e.getMessage());
+                        return Mono.empty();
+                    })
+                    .then(Mono.defer(() -> {
+                        // session closed: new waiters will have to wait for the next session
+                        connected = new CompletableFuture<>();
+                        return Mono.delay(RECONNECT_DELAY);
+                    }))
+                    .repeat(() -> !closed)
+                    .subscribe();
+        }
+
+        private Mono<Void> handleSession(WebSocketSession session) {
+            LOGGER.info("Websocket opened on '{}'", uri.getPath());
+            connected.complete(null);
+            return session.receive()
+                    .doOnNext(this::dispatch)
+                    .then();
+        }
+
+        private void dispatch(WebSocketMessage message) {
+            if (waiters.isEmpty() && listeners.isEmpty()) {
+                return;
+            }
+            // only the headers are read, directly from the message buffer
+            Notification notification;
+            try {
+                notification = Notification.parse(message.getPayload().asInputStream());
+            } catch (Exception e) {
+                LOGGER.warn("Invalid JSON notification: {}", e.getMessage());
+                return;
+            }
+            // listeners first: caches are up-to-date when the waiters are woken up
+            listeners.forEach(l -> l.accept(notification));
+            waiters.forEach(w -> w.offer(notification));
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (connection != null) {
+                connection.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationTest {
+
+    private static final String DIRECTORY_UUID = "7f0e4c3a-2b1d-4e5f-9a8b-1c2d3e4f5a6b";
+    private static final String STUDY_UUID = "11111111-2222-3333-4444-555555555555";
+    private static final String NODE_UUID = "66666666-7777-8888-9999-000000000000";
+    private static final String ROOT_NETWORK_UUID = "aaaaaaaa-bbbb-cccc-dddd-eeeeeeeeeeee";
+
+    private static Notification parse(String json) throws IOException {
+        return Notification.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void scalarAndArrayHeaders() throws IOException {
+        Notification notification = parse("""
+                {"payload": {"big": [1, 2, 3]}, "headers": {
+                  "updateType": "directories", "timestamp": 1700000000000, "isRootDirectory": false,
+                  "elementNames": ["case1", "case2"], "error": null, "nested": {"updateType": "ignored"}
+                }}
+                """);
+        assertEquals("directories", notification.getHeader("updateType"));
+        assertEquals("1700000000000", notification.getHeader("timestamp"));
+        assertEquals("false", notification.getHeader("isRootDirectory"));
+        assertEquals("case1", notification.getHeader("elementNames"));
+        assertEquals(List.of("case1", "case2"), notification.getHeaderValues("elementNames"));
+        assertEquals(List.of("directories"), notification.getHeaderValues("updateType"));
+        // null values and nested objects are not kept
+        assertNull(notification.getHeader("error"));
+        assertNull(notification.getHeader("nested"));
+        assertEquals(List.of(), notification.getHeaderValues("missing"));
+    }
+
+    @Test
+    void payloadAfterHeadersIsNotRead() throws IOException {
+        // invalid JSON after the headers: never parsed
+        Notification notification = parse("{\"headers\": {\"studyUuid\": \"" + STUDY_UUID + "\"}, \"payload\": [not json");
+        assertEquals(STUDY_UUID, notification.getHeader("studyUuid"));
+    }
+
+    @Test
+    void noHeaders() throws IOException {
+        assertNull(parse("{\"payload\": \"x\"}").getHeader("updateType"));
+        assertNull(parse("[]").getHeader("updateType"));
+    }
+
+    @Test
+    void receptionTimeIsSetAtParsing() throws IOException {
+        long before = System.nanoTime();
+        Notification notification = parse("{\"headers\": {}}");
+        assertTrue(notification.getReceivedAtNanos() >= before);
+        assertTrue(notification.getReceivedAtNanos() <= System.nanoTime());
+    }
+
+    @Test
+    void embeddedHeaderValuesAtAnyDepth() throws IOException {
+        String directoriesInfos = "[{\\"uuid\\": \\"" + DIRECTORY_UUID + "\\", \\"name\\": \\"dir\\", \\"children\\": [{\\"uuid\\": \\"child\\"}]}]";
+        Notification notification = parse("{\"headers\": {\"directoriesInfos\": \"" + directoriesInfos + "\"}}");
+        assertEquals(List.of(DIRECTORY_UUID, "child"), notification.getEmbeddedHeaderValues("directoriesInfos", "uuid"));
+        assertEquals(DIRECTORY_UUID, notification.getFirstEmbeddedHeaderValue("directoriesInfos", "uuid"));
+        assertEquals(List.of("dir"), notification.getEmbeddedHeaderValues("directoriesInfos", "name"));
+        // parsed once, then from the cache
+        assertSame(notification.getEmbeddedHeaderValues("directoriesInfos", "uuid"), notification.getEmbeddedHeaderValues("directoriesInfos", "uuid"));
+    }
+
+    @Test
+    void invalidOrMissingEmbeddedHeader() throws IOException {
+        Notification notification = parse("{\"headers\": {\"directoriesInfos\": \"[{not json\"}}");
+        assertEquals(List.of(), notification.getEmbeddedHeaderValues("directoriesInfos", "uuid"));
+        assertNull(notification.getFirstEmbeddedHeaderValue("missing", "uuid"));
+    }
+
+    @Test
+    void matchElement() throws IOException {
+        String directoriesInfos = "[{\\"uuid\\": \\"" + DIRECTORY_UUID + "\\"}]";
+        Notification notification = parse("{\"headers\": {\"elementNames\": [\"study1\"], \"directoriesInfos\": \"" + directoriesInfos + "\"}}");
+        assertTrue(NotificationWaiter.checkNotificationMatchElement(notification, "study1", DIRECTORY_UUID));
+        assertFalse(NotificationWaiter.checkNotificationMatchElement(notification, "study2", DIRECTORY_UUID));
+        assertFalse(NotificationWaiter.checkNotificationMatchElement(notification, "study1", STUDY_UUID));
+    }
+
+    @Test
+    void matchStudyNode() throws IOException {
+        Notification studyWide = parse("{\"headers\": {\"studyUuid\": \"" + STUDY_UUID + "\"}}");
+        assertTrue(NotificationWaiter.checkNotificationMatchStudyNode(studyWide, STUDY_UUID, ROOT_NETWORK_UUID, NODE_UUID));
+
+        Notification nodeNotification = parse("{\"headers\": {\"studyUuid\": \"" + STUDY_UUID + "\", \"node\": \"" + NODE_UUID
+                + "\", \"rootNetworkUuid\": \"" + ROOT_NETWORK_UUID + "\"}}");
+        assertTrue(NotificationWaiter.checkNotificationMatchStudyNode(nodeNotification, STUDY_UUID, ROOT_NETWORK_UUID, NODE_UUID));
+        assertFalse(NotificationWaiter.checkNotificationMatchStudyNode(nodeNotification, STUDY_UUID, ROOT_NETWORK_UUID, DIRECTORY_UUID));
+        assertFalse(NotificationWaiter.checkNotificationMatchStudyNode(nodeNotification, STUDY_UUID, DIRECTORY_UUID, NODE_UUID));
+        assertFalse(NotificationWaiter.checkNotificationMatchStudyNode(nodeNotification, DIRECTORY_UUID, ROOT_NETWORK_UUID, NODE_UUID));
+    }
+}
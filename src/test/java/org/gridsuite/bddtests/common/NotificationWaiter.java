@@ -6,22 +6,20 @@
  */
 package org.gridsuite.bddtests.common;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.gridsuite.bddtests.tracing.Span;
+import org.gridsuite.bddtests.tracing.Tracing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpHeaders;
-import org.springframework.web.reactive.socket.WebSocketMessage;
-import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
 import org.springframework.web.util.UriComponentsBuilder;
-import reactor.core.publisher.Mono;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -31,25 +29,40 @@ public final class NotificationWaiter {
     }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationWaiter.class);
-    private static final String HEADER_USER_ID = "userId";
-
-    private static final ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
-    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Duration WS_READY_TIMEOUT = Duration.ofSeconds(5);
+    // study notification headers
+    private static final String HEADER_STUDY_UUID = "studyUuid";
+    private static final String HEADER_NODE = "node";
+    private static final String HEADER_ROOT_NETWORK_UUID = "rootNetworkUuid";
+    // directory notification headers
+    private static final String HEADER_ELEMENT_NAMES = "elementNames";
+    private static final String HEADER_DIRECTORIES_INFOS = "directoriesInfos";
 
     public static void executeAndWaitForStudyCreation(Runnable asyncRequest, String studyName, String directoryUuid, int timeout) {
+        executeAndWaitForStudyCreation(asyncRequest, studyName, directoryUuid, timeout, null);
+    }
+
+    // phaseTimer (nullable): marks the reception of the directory notifications (element created, then study created)
+    public static void executeAndWaitForStudyCreation(Runnable asyncRequest, String studyName, String directoryUuid, int timeout, PhaseTimer phaseTimer) {
+        Predicate<Notification> matcher = notification -> checkNotificationMatchElement(notification, studyName, directoryUuid);
         LOGGER.info("Wait for '{}' study creation completion (max: {} sec)", studyName, timeout);
-        waitForNotification(
-                asyncRequest,
-                jsonNode -> checkNotificationMatchStudyCreation(jsonNode, studyName, directoryUuid),
-                getDirectoryNotificationURI(),
-                timeout,
-                2
-        );
+        Span span = Tracing.startSpan("study creation", Span.Kind.WAIT);
+        try {
+            waitForNotification(
+                    asyncRequest,
+                    phaseTimer != null ? phaseTimer.markingMatches("directory notification", matcher) : matcher,
+                    getDirectoryNotificationURI(),
+                    timeout,
+                    2
+            );
+        } finally {
+            Tracing.end(span);
+        }
     }
 
     public static void waitForNotification(
             Runnable asyncRequest,
-            Predicate<JsonNode> notificationMatcher,
+            Predicate<Notification> notificationMatcher,
             URI notificationServerUri,
             int timeout,
             int expectedNotificationCount) {
@@ -59,83 +72,143 @@ public final class NotificationWaiter {
         }, notificationMatcher, notificationServerUri, timeout, expectedNotificationCount);
     }
 
-    public static <T> T waitForNotification(Supplier<T> asyncRequest, Predicate<JsonNode> notificationMatcher, URI notificationServerUri, int timeout, int expectedNotificationCount) {
-        CompletableFuture<Boolean> notificationReceived = new CompletableFuture<>();
-        CompletableFuture<Boolean> wsReady = new CompletableFuture<>();
-        AtomicInteger receivedNotificationCount = new AtomicInteger(0);
-
-        client.execute(notificationServerUri, createUserIdHeader(), session -> {
-            wsReady.complete(true);
-            return session.receive()
-                    .map(WebSocketMessage::getPayloadAsText)
-                    .flatMap(NotificationWaiter::parseJson)
-                    .filter(notificationMatcher)
-                    .doOnNext(msg -> {
-                        if (receivedNotificationCount.incrementAndGet() >= expectedNotificationCount) {
-                            notificationReceived.complete(true);
-                            session.close().subscribe();
-                        }
-                    }).then();
-        }).subscribe();
-
-        // Wait for web socket to be ready
+    public static <T> T waitForNotification(Supplier<T> asyncRequest, Predicate<Notification> notificationMatcher, URI notificationServerUri, int timeout, int expectedNotificationCount) {
+        // span of the request and of the wait for its notifications, named by the notification server
+        Span span = Tracing.startSpan("notification " + notificationServerUri.getPath(), Span.Kind.WAIT);
         try {
-            wsReady.get(5, java.util.concurrent.TimeUnit.SECONDS);
+            return waitForNotification(asyncRequest, notificationMatcher, notificationServerUri, timeout, expectedNotificationCount, span);
+        } finally {
+            Tracing.end(span);
+        }
+    }
+
+    private static <T> T waitForNotification(Supplier<T> asyncRequest, Predicate<Notification> notificationMatcher, URI notificationServerUri,
+                                             int timeout, int expectedNotificationCount, Span span) {
+        NotificationHub hub = NotificationHub.getInstance();
+        // register before the HTTP request, so that no notification can be missed
+        CompletableFuture<List<Notification>> notificationReceived = hub.register(notificationServerUri, notificationMatcher, expectedNotificationCount);
+
+        // Wait for web socket to be ready (only on first use, the socket is then shared and kept open)
+        try {
+            hub.awaitConnected(notificationServerUri, WS_READY_TIMEOUT);
         } catch (Exception e) {
+            notificationReceived.cancel(false);
             throw new RuntimeException("WebSocket did not become ready in time", e);
         }
 
         // Execute the HTTP request
-        T response = asyncRequest.get();
+        T response;
+        try {
+            response = asyncRequest.get();
+        } catch (RuntimeException e) {
+            notificationReceived.cancel(false);
+            throw e;
+        }
 
         // Wait for notifications with timeout
+        long requestDone = System.nanoTime();
         try {
-            notificationReceived.get(timeout, java.util.concurrent.TimeUnit.SECONDS);
+            notificationReceived.get(timeout, TimeUnit.SECONDS);
+            if (span != null) {
+                span.setAttribute("notificationWaitMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - requestDone));
+            }
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            notificationReceived.cancel(false);
             throw new RuntimeException("Error while waiting for notification", e);
         }
 
         return response;
     }
 
-    private static Mono<JsonNode> parseJson(String jsonAsString) {
+    // Wait until 'condition' is true: it is checked at start, then each time a matching notification is received,
+    // and with a polling backoff capped to 'fallbackPollInterval' (in case a notification is missed, or the socket is not ready yet)
+    public static boolean waitForCondition(String waitName, BooleanSupplier condition, Predicate<Notification> notificationMatcher,
+                                           URI notificationServerUri, Duration timeout, Duration fallbackPollInterval) {
+        return executeAndWaitForCondition(waitName, null, condition, notificationMatcher, notificationServerUri, timeout, fallbackPollInterval);
+    }
+
+    // Same, but the condition is first checked after the execution of 'asyncRequest' and a first notification (or poll interval)
+    public static boolean executeAndWaitForCondition(String waitName, Runnable asyncRequest, BooleanSupplier condition, Predicate<Notification> notificationMatcher,
+                                                     URI notificationServerUri, Duration timeout, Duration fallbackPollInterval) {
+        Span span = Tracing.startSpan(waitName, Span.Kind.WAIT);
         try {
-            return Mono.just(mapper.readTree(jsonAsString));
-        } catch (Exception e) {
-            return Mono.error(new RuntimeException("Invalid JSON: " + jsonAsString, e));
+            return executeAndWaitForConditionUntraced(waitName, asyncRequest, condition, notificationMatcher, notificationServerUri, timeout, fallbackPollInterval);
+        } finally {
+            Tracing.end(span);
         }
     }
 
-    private static boolean checkNotificationMatchStudyCreation(JsonNode json, String studyName, String directoryUuid) {
-        JsonNode headers = json.get("headers");
-        if (headers == null) {
+    private static boolean executeAndWaitForConditionUntraced(String waitName, Runnable asyncRequest, BooleanSupplier condition, Predicate<Notification> notificationMatcher,
+                                                              URI notificationServerUri, Duration timeout, Duration fallbackPollInterval) {
+        NotificationHub hub = NotificationHub.getInstance();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        // register (and wait for the socket) before the request or the first check, so that no notification can be missed
+        CompletableFuture<List<Notification>> notificationReceived = hub.register(notificationServerUri, notificationMatcher, 1);
+        try {
+            awaitConnectedQuietly(hub, notificationServerUri);
+            if (asyncRequest != null) {
+                asyncRequest.run();
+                notificationReceived.get(Math.min(timeout.toNanos(), fallbackPollInterval.toNanos()), TimeUnit.NANOSECONDS);
+            }
+        } catch (TimeoutException e) {
+            // no notification yet: polling
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error while waiting for notification", e);
+        } finally {
+            notificationReceived.cancel(false);
         }
+        // wake-up registered before each check, so that no notification can be missed in between
+        return Poller.pollUntil(waitName,
+                condition::getAsBoolean,
+                Boolean.TRUE::equals,
+                Duration.ofNanos(Math.max(0, deadline - System.nanoTime())),
+                () -> hub.register(notificationServerUri, notificationMatcher, 1),
+                fallbackPollInterval);
+    }
 
-        String jsonElementName = headers.path("elementNames").path(0).asText("");
-        JsonNode directoriesInfos;
+    private static void awaitConnectedQuietly(NotificationHub hub, URI notificationServerUri) throws InterruptedException {
         try {
-            directoriesInfos = mapper.readTree(headers.path("directoriesInfos").asText());
-        } catch (JsonProcessingException e) {
+            hub.awaitConnected(notificationServerUri, WS_READY_TIMEOUT);
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warn("WebSocket not ready in time, relying on polling: {}", e.getMessage());
+        }
+    }
+
+    // notification about a study, and about this node / root network when the notification targets one
+    public static boolean checkNotificationMatchStudyNode(Notification notification, String studyUuid, String rootNetworkUuid, String nodeUuid) {
+        if (!studyUuid.equals(notification.getHeader(HEADER_STUDY_UUID))) {
             return false;
         }
-        String jsonDirectoryUuid = directoriesInfos.path(0).path("uuid").asText("");
+        String notificationNodeUuid = notification.getHeader(HEADER_NODE);
+        String notificationRootNetworkUuid = notification.getHeader(HEADER_ROOT_NETWORK_UUID);
+        return (notificationNodeUuid == null || notificationNodeUuid.equals(nodeUuid))
+                && (notificationRootNetworkUuid == null || notificationRootNetworkUuid.equals(rootNetworkUuid));
+    }
 
-        return jsonElementName.equals(studyName) && jsonDirectoryUuid.equals(directoryUuid);
+    // notification about an element in a directory
+    public static boolean checkNotificationMatchElement(Notification notification, String elementName, String directoryUuid) {
+        return elementName.equals(notification.getHeader(HEADER_ELEMENT_NAMES))
+                && directoryUuid.equals(notification.getFirstEmbeddedHeaderValue(HEADER_DIRECTORIES_INFOS, "uuid"));
     }
 
-    private static URI getDirectoryNotificationURI() {
-        return UriComponentsBuilder.fromUri(URI.create(EnvProperties.getInstance().getMicroServiceUrl(EnvProperties.MicroService.DIRECTORY_NOTIFICATION_SERVER) + "/notify"))
-            .queryParam("updateType", "directories")
+    public static URI getStudyNotificationURI(String studyUuid) {
+        return UriComponentsBuilder.fromUri(URI.create(EnvProperties.getInstance().getMicroServiceUrl(EnvProperties.MicroService.STUDY_NOTIFICATION_SERVER) + "/notify"))
+            .queryParam("studyUuid", studyUuid)
             .queryParam("userId", EnvProperties.getInstance().getUserName())
             .queryParam("access_token", EnvProperties.getInstance().getToken())
             .build()
             .toUri();
     }
 
-    private static HttpHeaders createUserIdHeader() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.set(HEADER_USER_ID, EnvProperties.getInstance().getUserName());
-        return headers;
+    public static URI getDirectoryNotificationURI() {
+        return UriComponentsBuilder.fromUri(URI.create(EnvProperties.getInstance().getMicroServiceUrl(EnvProperties.MicroService.DIRECTORY_NOTIFICATION_SERVER) + "/notify"))
+            .queryParam("updateType", "directories")
+            .queryParam("userId", EnvProperties.getInstance().getUserName())
+            .queryParam("access_token", EnvProperties.getInstance().getToken())
+            .build()
+            .toUri();
     }
 }
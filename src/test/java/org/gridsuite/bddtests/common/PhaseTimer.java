@@ -0,0 +1,98 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// Phase boundaries of an asynchronous backend pipeline (ex: case creation = upload, directory insert, case import),
+// timestamped as they are observed: request responses, notification arrivals (at their reception, not at the waiter
+// wake-up), poll completions. On finish, the time between consecutive boundaries is recorded in the PHASE latency
+// category as "<pipeline>: <boundary> -> <next boundary>", with the total as "<pipeline>: total".
+// Boundaries may be marked from reactor threads (notification matchers).
+public final class PhaseTimer {
+
+    public static final String START = "request";
+
+    private final String pipeline;
+    // boundary -> nanoTime, first mark kept
+    private final Map<String, Long> boundaries = new LinkedHashMap<>();
+    private final Map<String, Integer> notificationCounts = new LinkedHashMap<>();
+    private final Set<Notification> markedNotifications = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean finished = false;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PhaseTimer.class);
+
+    private PhaseTimer(String pipeline) {
+        this.pipeline = pipeline;
+        boundaries.put(START, System.nanoTime());
+    }
+
+    public static PhaseTimer start(String pipeline) {
+        return new PhaseTimer(pipeline);
+    }
+
+    public void mark(String boundary) {
+        mark(boundary, System.nanoTime());
+    }
+
+    public synchronized void mark(String boundary, long nanos) {
+        boundaries.putIfAbsent(boundary, nanos);
+    }
+
+    // the notifications accepted by 'matcher' mark "<boundary> #1", "<boundary> #2"... at their reception time
+    public Predicate<Notification> markingMatches(String boundary, Predicate<Notification> matcher) {
+        return notification -> {
+            boolean matches = matcher.test(notification);
+            if (matches) {
+                markNotification(boundary, notification);
+            }
+            return matches;
+        };
+    }
+
+    private synchronized void markNotification(String boundary, Notification notification) {
+        // a notification may be offered to several waiters of the same pipeline
+        if (markedNotifications.add(notification)) {
+            int count = notificationCounts.merge(boundary, 1, Integer::sum);
+            boundaries.putIfAbsent(boundary + " #" + count, notification.getReceivedAtNanos());
+        }
+    }
+
+    // records the phases, in the order of their boundaries (an unexpected order shows as differently named phases)
+    public synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        List<Map.Entry<String, Long>> ordered = new ArrayList<>(boundaries.entrySet());
+        ordered.sort(Map.Entry.comparingByValue());
+        LatencyStats stats = LatencyStats.getInstance(LatencyStats.Category.PHASE);
+        StringBuilder log = new StringBuilder();
+        for (int i = 1; i < ordered.size(); i++) {
+            Map.Entry<String, Long> from = ordered.get(i - 1);
+            Map.Entry<String, Long> to = ordered.get(i);
+            long duration = to.getValue() - from.getValue();
+            stats.record(pipeline + ": " + from.getKey() + " -> " + to.getKey(), duration);
+            log.append(", ").append(to.getKey()).append(" +").append(TimeUnit.NANOSECONDS.toMillis(duration)).append(" ms");
+        }
+        long total = ordered.get(ordered.size() - 1).getValue() - ordered.get(0).getValue();
+        stats.record(pipeline + ": total", total);
+        LOGGER.info("Phases of {}: {}{} (total {} ms)", pipeline, START, log, TimeUnit.NANOSECONDS.toMillis(total));
+    }
+}
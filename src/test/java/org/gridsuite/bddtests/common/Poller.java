@@ -0,0 +1,218 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.gridsuite.bddtests.tracing.Span;
+import org.gridsuite.bddtests.tracing.Tracing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Shared polling engine: fast first probes, then exponential backoff with jitter (so that concurrent waiters
+// do not poll in sync), until a wall-clock deadline. An optional wake-up (ex: a notification) triggers an
+// immediate probe. The number of polls and the detection lag are measured for each wait name.
+// Each wait is a span of the scenario trace, the HTTP calls of its probes being its children.
+public final class Poller {
+    private Poller() {
+        throw new UnsupportedOperationException("Poller is a utility class and cannot be instantiated");
+    }
+
+    // detectionLag: time between the last probe which was not done and the detection (upper bound of the real lag)
+    public record Stats(long waits, long polls, long wakeUps, long timeouts, long totalDetectionLagMs, long maxDetectionLagMs) {
+        public long meanDetectionLagMs() {
+            long detected = waits - timeouts;
+            return detected > 0 ? totalDetectionLagMs / detected : 0;
+        }
+    }
+
+    // time source and waits, replaced by a virtual clock in the unit tests
+    interface Clock {
+        long nanoTime();
+
+        void sleep(long nanos) throws InterruptedException;
+
+        // true if woken up before the timeout
+        boolean awaitWakeUp(Future<?> wakeUp, long timeoutNanos) throws InterruptedException, ExecutionException;
+    }
+
+    static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+
+        @Override
+        public boolean awaitWakeUp(Future<?> wakeUp, long timeoutNanos) throws InterruptedException, ExecutionException {
+            try {
+                wakeUp.get(timeoutNanos, TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }
+    };
+
+    private static final class Counters {
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder polls = new LongAdder();
+        private final LongAdder wakeUps = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalDetectionLagMs = new LongAdder();
+        private final LongAccumulator maxDetectionLagMs = new LongAccumulator(Math::max, 0);
+    }
+
+    // defaults, overridable in the *_env.properties files
+    private static final long DEFAULT_INITIAL_DELAY_MS = 100;
+    private static final long DEFAULT_MAX_DELAY_MS = 5000;
+    private static final double DEFAULT_BACKOFF_FACTOR = 2.0;
+    private static final double DEFAULT_JITTER_FACTOR = 0.25;
+
+    private static final Map<String, Counters> COUNTERS = new ConcurrentHashMap<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Poller.class);
+
+    public static <T> T pollUntil(String name, Supplier<T> probe, Predicate<T> isDone, Duration timeout) {
+        return pollUntil(name, probe, isDone, timeout, null, Duration.ofMillis(getLongSetting("poll_max_delay_ms", DEFAULT_MAX_DELAY_MS)));
+    }
+
+    // 'wakeUp' is armed before each probe, and returns a future completed when a new probe is worth doing;
+    // 'maxDelay' caps the backoff (ex: slow fallback poll when a notification is expected).
+    // Returns the last probe result (done or not).
+    public static <T> T pollUntil(String name, Supplier<T> probe, Predicate<T> isDone, Duration timeout,
+                                  Supplier<? extends Future<?>> wakeUp, Duration maxDelay) {
+        return pollUntil(name, probe, isDone, timeout, wakeUp, maxDelay, SYSTEM_CLOCK);
+    }
+
+    // package-private for the unit tests
+    static <T> T pollUntil(String name, Supplier<T> probe, Predicate<T> isDone, Duration timeout,
+                           Supplier<? extends Future<?>> wakeUp, Duration maxDelay, Clock clock) {
+        Span span = Tracing.startSpan(name, Span.Kind.POLL);
+        try {
+            return pollUntil(name, probe, isDone, timeout, wakeUp, maxDelay, clock, span);
+        } finally {
+            Tracing.end(span);
+        }
+    }
+
+    private static <T> T pollUntil(String name, Supplier<T> probe, Predicate<T> isDone, Duration timeout,
+                                   Supplier<? extends Future<?>> wakeUp, Duration maxDelay, Clock clock, Span span) {
+        Counters counters = COUNTERS.computeIfAbsent(name, n -> new Counters());
+        counters.waits.increment();
+        double factor = getDoubleSetting("poll_backoff_factor", DEFAULT_BACKOFF_FACTOR);
+        double jitter = getDoubleSetting("poll_jitter_factor", DEFAULT_JITTER_FACTOR);
+        long delay = TimeUnit.MILLISECONDS.toNanos(getLongSetting("poll_initial_delay_ms", DEFAULT_INITIAL_DELAY_MS));
+        long maxDelayNanos = maxDelay.toNanos();
+
+        long start = clock.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long lastNotDoneProbe = start;
+        int polls = 0;
+        while (true) {
+            Future<?> wakeUpFuture = wakeUp != null ? wakeUp.get() : null;
+            try {
+                long probeStart = clock.nanoTime();
+                T result = probe.get();
+                polls++;
+                counters.polls.increment();
+                if (isDone.test(result)) {
+                    long lagMs = TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - lastNotDoneProbe);
+                    counters.totalDetectionLagMs.add(lagMs);
+                    counters.maxDetectionLagMs.accumulate(lagMs);
+                    LOGGER.info("Wait '{}' done after {} polls in {} ms (detection lag <= {} ms)",
+                            name, polls, TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - start), lagMs);
+                    setSpanResult(span, polls, "done", lagMs);
+                    return result;
+                }
+                lastNotDoneProbe = probeStart;
+
+                long remaining = deadline - clock.nanoTime();
+                if (remaining <= 0) {
+                    counters.timeouts.increment();
+                    LOGGER.warn("Waiting time exceeded for '{}' ({} polls)", name, polls);
+                    setSpanResult(span, polls, "timeout", -1);
+                    return result;
+                }
+                long jitteredDelay = (long) (delay * (1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)));
+                long sleep = Math.max(0, Math.min(jitteredDelay, remaining));
+                if (wakeUpFuture != null) {
+                    awaitWakeUp(clock, wakeUpFuture, sleep, counters);
+                } else {
+                    clock.sleep(sleep);
+                }
+                delay = Math.min((long) (delay * factor), maxDelayNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for '" + name + "'", e);
+            } finally {
+                if (wakeUpFuture != null) {
+                    wakeUpFuture.cancel(false);
+                }
+            }
+        }
+    }
+
+    private static void setSpanResult(Span span, int polls, String outcome, long detectionLagMs) {
+        if (span != null) {
+            span.setAttribute("polls", polls).setAttribute("outcome", outcome);
+            if (detectionLagMs >= 0) {
+                span.setAttribute("detectionLagMs", detectionLagMs);
+            }
+        }
+    }
+
+    private static void awaitWakeUp(Clock clock, Future<?> wakeUpFuture, long timeoutNanos, Counters counters) throws InterruptedException {
+        try {
+            if (clock.awaitWakeUp(wakeUpFuture, timeoutNanos)) {
+                counters.wakeUps.increment();
+            }
+            // else no wake-up: regular poll
+        } catch (ExecutionException e) {
+            LOGGER.warn("Wake-up failure: {}", e.getMessage());
+        }
+    }
+
+    public static Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        COUNTERS.forEach((name, c) -> stats.put(name, new Stats(c.waits.sum(), c.polls.sum(), c.wakeUps.sum(), c.timeouts.sum(),
+                c.totalDetectionLagMs.sum(), c.maxDetectionLagMs.get())));
+        return stats;
+    }
+
+    public static void logStats() {
+        getStats().forEach((name, s) -> LOGGER.info("Wait '{}': {} waits, {} polls, {} wake-ups, {} timeouts, detection lag mean={} ms max={} ms",
+                name, s.waits(), s.polls(), s.wakeUps(), s.timeouts(), s.meanDetectionLagMs(), s.maxDetectionLagMs()));
+    }
+
+    // --------------------------------------------------------
+    private static long getLongSetting(String name, long defaultValue) {
+        String value = EnvProperties.getInstance().getProp(name);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    private static double getDoubleSetting(String name, double defaultValue) {
+        String value = EnvProperties.getInstance().getProp(name);
+        return value != null ? Double.parseDouble(value.trim()) : defaultValue;
+    }
+}
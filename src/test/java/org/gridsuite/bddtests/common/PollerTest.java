@@ -0,0 +1,143 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// default settings (no platform loaded): first delay 100 ms, factor 2, jitter 25%, max delay 5 s.
+// The waits are done on a virtual clock: the computed delays are checked, not the elapsed time.
+class PollerTest {
+
+    // time only moves when the poller waits; completed wake-ups return at once
+    private static final class VirtualClock implements Poller.Clock {
+        private long now = 0;
+        private final List<Long> waitsMs = new ArrayList<>();
+
+        @Override
+        public long nanoTime() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            waitsMs.add(TimeUnit.NANOSECONDS.toMillis(nanos));
+            now += nanos;
+        }
+
+        @Override
+        public boolean awaitWakeUp(Future<?> wakeUp, long timeoutNanos) {
+            if (wakeUp.isDone()) {
+                waitsMs.add(0L);
+                return true;
+            }
+            sleep(timeoutNanos);
+            return false;
+        }
+    }
+
+    private final VirtualClock clock = new VirtualClock();
+
+    private <T> T pollUntil(String name, Supplier<T> probe, Predicate<T> isDone, Duration timeout,
+                            Supplier<? extends Future<?>> wakeUp, Duration maxDelay) {
+        return Poller.pollUntil(name, probe, isDone, timeout, wakeUp, maxDelay, clock);
+    }
+
+    private static void assertJittered(long expectedMs, long actualMs) {
+        assertTrue(actualMs >= expectedMs * 0.75 && actualMs <= expectedMs * 1.25,
+                "delay " + actualMs + " ms not within 25% of " + expectedMs + " ms");
+    }
+
+    @Test
+    void doneOnFirstProbeDoesNotWait() {
+        Integer result = pollUntil("test first probe", () -> 42, r -> r == 42, Duration.ofSeconds(10), null, Duration.ofSeconds(5));
+        assertEquals(42, result);
+        assertTrue(clock.waitsMs.isEmpty());
+        Poller.Stats stats = Poller.getStats().get("test first probe");
+        assertEquals(1, stats.waits());
+        assertEquals(1, stats.polls());
+        assertEquals(0, stats.timeouts());
+    }
+
+    @Test
+    void delaysGrowExponentially() {
+        AtomicInteger probes = new AtomicInteger();
+        int result = pollUntil("test backoff", probes::incrementAndGet, r -> r == 4, Duration.ofSeconds(10), null, Duration.ofSeconds(5));
+        assertEquals(4, result);
+        assertEquals(3, clock.waitsMs.size());
+        assertJittered(100, clock.waitsMs.get(0));
+        assertJittered(200, clock.waitsMs.get(1));
+        assertJittered(400, clock.waitsMs.get(2));
+        assertEquals(4, Poller.getStats().get("test backoff").polls());
+    }
+
+    @Test
+    void delaysAreCappedByMaxDelay() {
+        AtomicInteger probes = new AtomicInteger();
+        pollUntil("test max delay", probes::incrementAndGet, r -> r == 5, Duration.ofSeconds(10), null, Duration.ofMillis(150));
+        assertEquals(4, clock.waitsMs.size());
+        assertJittered(100, clock.waitsMs.get(0));
+        // 150 ms instead of 200, 400 and 800 ms
+        clock.waitsMs.subList(1, 4).forEach(w -> assertJittered(150, w));
+    }
+
+    @Test
+    void deadlineReturnsLastProbeResult() {
+        AtomicInteger probes = new AtomicInteger();
+        int result = pollUntil("test timeout", probes::incrementAndGet, r -> false, Duration.ofMillis(300), null, Duration.ofSeconds(5));
+        assertEquals(probes.get(), result);
+        // the last wait is cut to the deadline, then a last probe is done
+        assertEquals(300, clock.waitsMs.stream().mapToLong(Long::longValue).sum());
+        assertEquals(clock.waitsMs.size() + 1, probes.get());
+        Poller.Stats stats = Poller.getStats().get("test timeout");
+        assertEquals(1, stats.timeouts());
+        assertEquals(0, stats.meanDetectionLagMs());
+    }
+
+    @Test
+    void wakeUpTriggersImmediateProbe() {
+        AtomicInteger probes = new AtomicInteger();
+        // wake-ups already completed: no backoff at all
+        int result = pollUntil("test wake-up", probes::incrementAndGet, r -> r == 5, Duration.ofSeconds(10),
+                () -> CompletableFuture.completedFuture(null), Duration.ofSeconds(5));
+        assertEquals(5, result);
+        assertEquals(List.of(0L, 0L, 0L, 0L), clock.waitsMs);
+        Poller.Stats stats = Poller.getStats().get("test wake-up");
+        assertEquals(4, stats.wakeUps());
+        assertEquals(5, stats.polls());
+    }
+
+    @Test
+    void noWakeUpFallsBackToBackoff() {
+        AtomicInteger probes = new AtomicInteger();
+        pollUntil("test no wake-up", probes::incrementAndGet, r -> r == 3, Duration.ofSeconds(10),
+                CompletableFuture::new, Duration.ofSeconds(5));
+        assertEquals(2, clock.waitsMs.size());
+        assertJittered(100, clock.waitsMs.get(0));
+        assertJittered(200, clock.waitsMs.get(1));
+        assertEquals(0, Poller.getStats().get("test no wake-up").wakeUps());
+    }
+
+    @Test
+    void wakeUpIsCancelledAfterEachProbe() {
+        CompletableFuture<Void> wakeUp = new CompletableFuture<>();
+        pollUntil("test wake-up cancel", () -> true, Boolean.TRUE::equals, Duration.ofSeconds(1), () -> wakeUp, Duration.ofSeconds(1));
+        assertTrue(wakeUp.isCancelled());
+    }
+}
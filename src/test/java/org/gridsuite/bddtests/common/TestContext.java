@@ -7,8 +7,6 @@
 package org.gridsuite.bddtests.common;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import dev.failsafe.Failsafe;
-import dev.failsafe.RetryPolicy;
 import org.gridsuite.bddtests.directory.DirectoryRequests;
 import org.gridsuite.bddtests.explore.ExploreRequests;
 import org.gridsuite.bddtests.study.StudyRequests;
@@ -17,6 +15,9 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -45,22 +46,26 @@ public class TestContext {
         public String rootNetworkUuid;
     }
 
-    // set of element alias/name and their uuid, we want to use/memorise during a whole scenario, between the steps
-    private Map<String, String> currentDirectoryIds;
-    private Map<String, String> currentStudyIds;
-    private Map<String, String> currentCaseIds;
-    private Map<String, Node> currentNodeIds;
-    private Map<String, RootNetwork> currentRootNetworkIds;
-    private Map<String, Integer> configIntParameters;
-    private Map<String, JsonNode> currentCaseExtensions;
+    // set of element alias/name and their uuid, we want to use/memorise during a whole scenario, between the steps.
+    // One context per scenario (PicoContainer), concurrent maps as steps may complete from reactor threads
+    private final Map<String, String> currentDirectoryIds = new ConcurrentHashMap<>();
+    private final Map<String, String> currentStudyIds = new ConcurrentHashMap<>();
+    private final Map<String, String> currentCaseIds = new ConcurrentHashMap<>();
+    private final Map<String, Node> currentNodeIds = new ConcurrentHashMap<>();
+    private final Map<String, RootNetwork> currentRootNetworkIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> configIntParameters = new ConcurrentHashMap<>();
+    private final Map<String, JsonNode> currentCaseExtensions = new ConcurrentHashMap<>();
     // a tmp dir uuid possibly associated to a scenario
-    private String tmpRootDirId = null;
+    private volatile String tmpRootDirId = null;
+    // the shared root directory is created once, even by parallel scenarios
+    private static final Object ROOT_DIRECTORY_LOCK = new Object();
 
     // CONSTANTS:
     public static final ArrayList<String> LOADFLOW_PROVIDERS = new ArrayList<>(List.of("OpenLoadFlow"));
     public static final int MAX_WAITING_TIME_IN_SEC = 180;
     public static final int MAX_COMPUTATION_WAITING_TIME_IN_SEC = 300;
     public static final String CURRENT_ELEMENT = "current";
+    public static final Duration FALLBACK_POLL_INTERVAL = Duration.ofSeconds(10);
 
     // extensions
     public static final Map<String, String> EXTENTION_KEYS = Map.ofEntries(
@@ -72,14 +77,14 @@ public class TestContext {
 
     public void init() {
         LOGGER.info("BaseStepDefinitions init");
-        currentStudyIds = new HashMap<>();
-        currentDirectoryIds = new HashMap<>();
-        currentCaseIds = new HashMap<>();
-        currentNodeIds = new HashMap<>();
-        currentRootNetworkIds = new HashMap<>();
+        currentStudyIds.clear();
+        currentDirectoryIds.clear();
+        currentCaseIds.clear();
+        currentNodeIds.clear();
+        currentRootNetworkIds.clear();
         tmpRootDirId = null;
-        configIntParameters = new HashMap<>();
-        currentCaseExtensions = new HashMap<>();
+        configIntParameters.clear();
+        currentCaseExtensions.clear();
     }
 
     public void reset() {
@@ -90,11 +95,14 @@ public class TestContext {
             String user = EnvProperties.getInstance().getUserName();
             ExploreRequests.getInstance().removeElement(tmpRootDirId, user);
         }
-        currentStudyIds = null;
-        currentDirectoryIds = null;
-        currentCaseIds = null;
-        currentNodeIds = null;
-        currentRootNetworkIds = null;
+        ConnectionPools.getInstance().logGauges();
+        Poller.logStats();
+        CoalescingFilter.logStats();
+        currentStudyIds.clear();
+        currentDirectoryIds.clear();
+        currentCaseIds.clear();
+        currentNodeIds.clear();
+        currentRootNetworkIds.clear();
     }
 
     // --------------------------------------------------------
@@ -158,6 +166,10 @@ public class TestContext {
     }
 
     public void setCaseExtentions(String aliasName, JsonNode data) {
+        if (data == null) {
+            currentCaseExtensions.remove(aliasName);
+            return;
+        }
         currentCaseExtensions.put(aliasName, data);
     }
 
@@ -185,13 +197,15 @@ public class TestContext {
     // --------------------------------------------------------
     public String checkOrCreateRootDirectory(String directoryName) {
         String userName = EnvProperties.getInstance().getUserName();
-        String dirId = DirectoryRequests.getInstance().getRootDirectoryId(userName, directoryName);
-        if (dirId == null) {
-            dirId = createRootDirectory(directoryName, directoryName, "", userName);
-        } else {
-            setCurrentDirectory(directoryName, dirId);
+        synchronized (ROOT_DIRECTORY_LOCK) {
+            String dirId = DirectoryRequests.getInstance().findRootDirectoryId(userName, directoryName);
+            if (dirId == null) {
+                dirId = createRootDirectory(directoryName, directoryName, "", userName);
+            } else {
+                setCurrentDirectory(directoryName, dirId);
+            }
+            return dirId;
         }
-        return dirId;
     }
 
     // --------------------------------------------------------
@@ -213,28 +227,67 @@ public class TestContext {
 
     // --------------------------------------------------------
     public String waitForElementCreation(String dirId, String elementType, String elementName) {
-        // check element creation in target directory, and return its uuid
-        RetryPolicy<String> retryPolicyDirectory = RetryPolicy.<String>builder()
-                .withDelay(Duration.ofMillis(1000))
-                .withMaxRetries(MAX_WAITING_TIME_IN_SEC)
-                .onRetriesExceeded(e -> LOGGER.warn("Waiting time exceeded"))
-                .handleResult(null)
-                .build();
-        LOGGER.info("Wait for '{}' {} element creation in directory (max: {} sec)", elementName, elementType, retryPolicyDirectory.getConfig().getMaxRetries());
+        return executeAndWaitForElementCreation(null, dirId, elementType, elementName);
+    }
+
+    public String executeAndWaitForElementCreation(Runnable asyncRequest, String dirId, String elementType, String elementName) {
+        return executeAndWaitForElementCreation(asyncRequest, dirId, elementType, elementName, null);
+    }
+
+    // phaseTimer (nullable): marks the directory notification reception, then the element found in the directory listing
+    public String executeAndWaitForElementCreation(Runnable asyncRequest, String dirId, String elementType, String elementName, PhaseTimer phaseTimer) {
+        // check element creation in target directory, and return its uuid:
+        // completed by the directory notification about this element, the listing being only a verification/fallback.
+        // Directory notifications do not tell the element type: a notification about another element with the same name
+        // only triggers a check, the typed listing lookup deciding
+        LOGGER.info("Wait for '{}' {} element creation in directory (max: {} sec)", elementName, elementType, MAX_WAITING_TIME_IN_SEC);
         String user = EnvProperties.getInstance().getUserName();
-        return Failsafe.with(retryPolicyDirectory).get(() -> DirectoryRequests.getInstance().getElementId(user, dirId, elementType, elementName));
+        final String[] eltId = {null};
+        Predicate<Notification> matcher = json -> NotificationWaiter.checkNotificationMatchElement(json, elementName, dirId);
+        NotificationWaiter.executeAndWaitForCondition(
+                "element creation",
+                asyncRequest,
+                () -> {
+                    eltId[0] = DirectoryRequests.getInstance().getElementId(user, dirId, elementType, elementName);
+                    return eltId[0] != null;
+                },
+                phaseTimer != null ? phaseTimer.markingMatches("directory notification", matcher) : matcher,
+                NotificationWaiter.getDirectoryNotificationURI(),
+                Duration.ofSeconds(MAX_WAITING_TIME_IN_SEC),
+                FALLBACK_POLL_INTERVAL);
+        if (phaseTimer != null && eltId[0] != null) {
+            phaseTimer.mark("element listed");
+        }
+        return eltId[0];
     }
 
     public void executeAndWaitForStudyCreation(Runnable asyncRequest, String studyName, String directoryName, int secondsTimeout) {
+        executeAndWaitForStudyCreation(asyncRequest, studyName, directoryName, secondsTimeout, null);
+    }
+
+    public void executeAndWaitForStudyCreation(Runnable asyncRequest, String studyName, String directoryName, int secondsTimeout, PhaseTimer phaseTimer) {
         String dirId = getDirId(directoryName);
-        NotificationWaiter.executeAndWaitForStudyCreation(asyncRequest, studyName, dirId, secondsTimeout);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(secondsTimeout);
+        NotificationWaiter.executeAndWaitForStudyCreation(asyncRequest, studyName, dirId, secondsTimeout, phaseTimer);
+        // the notifications are matched by name only (no type in the directory notifications): they may be about
+        // another element with the same name (ex: a directory), so the study is checked in the listing, again on
+        // each notification about this name
+        String user = EnvProperties.getInstance().getUserName();
+        boolean studyListed = NotificationWaiter.waitForCondition(
+                "study element",
+                () -> DirectoryRequests.getInstance().getElementId(user, dirId, "STUDY", studyName) != null,
+                json -> NotificationWaiter.checkNotificationMatchElement(json, studyName, dirId),
+                NotificationWaiter.getDirectoryNotificationURI(),
+                Duration.ofNanos(Math.max(0, deadline - System.nanoTime())),
+                FALLBACK_POLL_INTERVAL);
+        assertTrue(studyListed, "No study named " + studyName + " in directory " + directoryName);
     }
 
     // --------------------------------------------------------
     public String getElementFrom(String eltName, String eltType, String directoryName) {
         String dirId = getDirId(directoryName);
         String user = EnvProperties.getInstance().getUserName();
-        String eltId = DirectoryRequests.getInstance().getElementId(user, dirId, eltType, eltName);
+        String eltId = DirectoryRequests.getInstance().findElementId(user, dirId, eltType, eltName);
         assertNotNull(eltId, "Cannot find " + eltType + " named " + eltName + " in directory " + directoryName);
         return eltId;
     }
@@ -253,14 +306,15 @@ public class TestContext {
         Node nodeIds = getNodeId(studyNodeName);
         RootNetwork rootNetwork = getCurrentRootNetwork();
 
-        RetryPolicy<Boolean> retryPolicy = RetryPolicy.<Boolean>builder()
-                .withDelay(Duration.ofMillis(1000))
-                .withMaxRetries(timeoutInSeconds)
-                .onRetriesExceeded(e -> LOGGER.warn("Waiting time exceeded"))
-                .handleResult(Boolean.FALSE)
-                .build();
-        LOGGER.info("Wait for {} completion with status '{}' (max: {} sec)", compName.name(), computationStatus, retryPolicy.getConfig().getMaxRetries());
-        return Failsafe.with(retryPolicy).get(() -> statusMatching(computationStatus, nodeIds.studyId, rootNetwork.rootNetworkUuid, nodeIds.nodeId, compName));
+        LOGGER.info("Wait for {} completion with status '{}' (max: {} sec)", compName.name(), computationStatus, timeoutInSeconds);
+        // the status is checked again on each study notification about this node, with a slow fallback poll
+        return NotificationWaiter.waitForCondition(
+                compName.name().toLowerCase(Locale.ROOT) + " status",
+                () -> statusMatching(computationStatus, nodeIds.studyId, rootNetwork.rootNetworkUuid, nodeIds.nodeId, compName),
+                json -> NotificationWaiter.checkNotificationMatchStudyNode(json, nodeIds.studyId, rootNetwork.rootNetworkUuid, nodeIds.nodeId),
+                NotificationWaiter.getStudyNotificationURI(nodeIds.studyId),
+                Duration.ofSeconds(timeoutInSeconds),
+                FALLBACK_POLL_INTERVAL);
     }
 
     // --------------------------------------------------------
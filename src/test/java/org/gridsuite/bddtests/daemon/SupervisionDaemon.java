@@ -0,0 +1,159 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.daemon;
+
+import org.gridsuite.bddtests.load.ScenarioLauncher;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Supervision in a long-running JVM: the tagged scenarios are run on a fixed schedule, reusing the warm
+// web clients, connection pools and notification sockets between runs (no build nor JVM start per probe).
+// Results and latencies are exposed by a local HTTP server (see SupervisionHttpServer):
+//   /metrics  Prometheus text format: runs, last run, step/scenario/endpoint latency quantiles since start
+//   /runs     JSON: the last runs, with the duration of each step
+//   /health   200 if the last run passed, 503 otherwise
+// mvn test-compile exec:java -Dexec.mainClass=org.gridsuite.bddtests.daemon.SupervisionDaemon -Dexec.classpathScope=test
+//     -Dusing_platform=demo [-Ddaemon.interval_sec=60] [-Ddaemon.port=9464] [-Ddaemon.tags=@tagSupervision] [-Ddaemon.history=100]
+public final class SupervisionDaemon {
+
+    public record StepDuration(String step, double durationMs) {
+    }
+
+    public record RunResult(long id, Instant start, double durationMs, boolean passed, List<StepDuration> steps) {
+    }
+
+    private static final long DEFAULT_INTERVAL_SEC = 60;
+    private static final int DEFAULT_PORT = 9464;
+    private static final int DEFAULT_HISTORY = 100;
+
+    private final ScenarioLauncher launcher;
+    private final Duration interval;
+    private final int historySize;
+    private final Deque<RunResult> history = new ArrayDeque<>();
+    private final AtomicLong passedRuns = new AtomicLong();
+    private final AtomicLong failedRuns = new AtomicLong();
+    // step histograms at the end of the previous run: the difference gives the durations of the last run
+    private final Map<String, Histogram> previousStepHistograms = new HashMap<>();
+    private long runCount = 0;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SupervisionDaemon.class);
+
+    SupervisionDaemon(ScenarioLauncher launcher, Duration interval, int historySize) {
+        this.launcher = launcher;
+        this.interval = interval;
+        this.historySize = historySize;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Duration interval = Duration.ofSeconds(Long.getLong("daemon.interval_sec", DEFAULT_INTERVAL_SEC));
+        int port = Integer.getInteger("daemon.port", DEFAULT_PORT);
+        ScenarioLauncher launcher = ScenarioLauncher.of(System.getProperty("daemon.tags"), System.getProperty("daemon.features"));
+        SupervisionDaemon daemon = new SupervisionDaemon(launcher, interval, Integer.getInteger("daemon.history", DEFAULT_HISTORY));
+
+        SupervisionHttpServer server = new SupervisionHttpServer(daemon, port);
+        server.start();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "supervision-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // fixed rate: runs start every interval (a late run delays the next one, runs never overlap)
+        scheduler.scheduleAtFixedRate(daemon::runOnce, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        LOGGER.info("Supervision daemon started: every {} s, metrics on port {}: {}", interval.toSeconds(), port, launcher.getDescription());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            scheduler.shutdownNow();
+            server.stop();
+            stopped.countDown();
+        }));
+        stopped.await();
+    }
+
+    void runOnce() {
+        Instant start = Instant.now();
+        long startNanos = System.nanoTime();
+        boolean passed;
+        try {
+            passed = launcher.runOnce();
+        } catch (RuntimeException e) {
+            // an exception would cancel the next scheduled runs
+            LOGGER.error("Supervision run failure: {}", e.getMessage(), e);
+            passed = false;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        LatencyStats.getInstance(LatencyStats.Category.RUN).record("supervision run", durationNanos);
+        (passed ? passedRuns : failedRuns).incrementAndGet();
+
+        RunResult result;
+        synchronized (this) {
+            result = new RunResult(++runCount, start, durationNanos / 1e6, passed, getLastRunStepDurations());
+            history.addFirst(result);
+            while (history.size() > historySize) {
+                history.removeLast();
+            }
+        }
+        LOGGER.info("Supervision run {} {} in {} ms", result.id(), passed ? "passed" : "FAILED", Math.round(result.durationMs()));
+    }
+
+    private List<StepDuration> getLastRunStepDurations() {
+        LatencyStats stepStats = LatencyStats.getInstance(LatencyStats.Category.STEP);
+        List<StepDuration> steps = new ArrayList<>();
+        for (String step : stepStats.getSummaries().keySet()) {
+            Histogram current = stepStats.getHistogram(step).copy();
+            Histogram previous = previousStepHistograms.put(step, current.copy());
+            if (previous != null) {
+                current.subtract(previous);
+            }
+            if (current.getTotalCount() > 0) {
+                // a step used several times in the run: its longest duration
+                steps.add(new StepDuration(step, current.getMaxValue() / 1000.));
+            }
+        }
+        return steps;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public String getDescription() {
+        return launcher.getDescription();
+    }
+
+    public long getPassedRuns() {
+        return passedRuns.get();
+    }
+
+    public long getFailedRuns() {
+        return failedRuns.get();
+    }
+
+    public synchronized List<RunResult> getHistory() {
+        return List.copyOf(history);
+    }
+
+    public synchronized RunResult getLastRun() {
+        return history.peekFirst();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.daemon;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.Locale;
+import java.util.Map;
+
+// Local HTTP endpoints of the supervision daemon (Reactor Netty): /metrics (Prometheus text format), /runs (JSON), /health
+final class SupervisionHttpServer {
+
+    private static final String PREFIX = "bddtests_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    private final SupervisionDaemon daemon;
+    private final int port;
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private DisposableServer server = null;
+
+    SupervisionHttpServer(SupervisionDaemon daemon, int port) {
+        this.daemon = daemon;
+        this.port = port;
+    }
+
+    synchronized void start() {
+        server = HttpServer.create()
+                .port(port)
+                .route(routes -> routes
+                        .get("/metrics", (req, res) -> res
+                                .header(HttpHeaderNames.CONTENT_TYPE, "text/plain; version=0.0.4; charset=utf-8")
+                                .sendString(Mono.fromCallable(this::metrics)))
+                        .get("/runs", (req, res) -> res
+                                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.fromCallable(this::runs)))
+                        .get("/health", (req, res) -> {
+                            SupervisionDaemon.RunResult last = daemon.getLastRun();
+                            boolean healthy = last != null && last.passed();
+                            return res.status(healthy ? HttpResponseStatus.OK : HttpResponseStatus.SERVICE_UNAVAILABLE)
+                                    .sendString(Mono.just(last == null ? "no run yet" : healthy ? "passed" : "failed"));
+                        }))
+                .bindNow();
+    }
+
+    synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    // --------------------------------------------------------
+    private String metrics() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP ").append(PREFIX).append("supervision_runs_total Supervision runs since the daemon start\n");
+        text.append("# TYPE ").append(PREFIX).append("supervision_runs_total counter\n");
+        text.append(PREFIX).append("supervision_runs_total{result=\"passed\"} ").append(daemon.getPassedRuns()).append('\n');
+        text.append(PREFIX).append("supervision_runs_total{result=\"failed\"} ").append(daemon.getFailedRuns()).append('\n');
+        text.append("# HELP ").append(PREFIX).append("supervision_interval_seconds Interval between two run starts\n");
+        text.append("# TYPE ").append(PREFIX).append("supervision_interval_seconds gauge\n");
+        text.append(PREFIX).append("supervision_interval_seconds ").append(daemon.getInterval().toSeconds()).append('\n');
+
+        SupervisionDaemon.RunResult last = daemon.getLastRun();
+        if (last != null) {
+            gauge(text, "supervision_last_run_success", "1 if the last run passed", last.passed() ? 1 : 0);
+            gauge(text, "supervision_last_run_timestamp_seconds", "Start of the last run", last.start().toEpochMilli() / 1000.);
+            gauge(text, "supervision_last_run_duration_seconds", "Duration of the last run", last.durationMs() / 1000.);
+            text.append("# HELP ").append(PREFIX).append("step_last_duration_seconds Step durations of the last run\n");
+            text.append("# TYPE ").append(PREFIX).append("step_last_duration_seconds gauge\n");
+            for (SupervisionDaemon.StepDuration step : last.steps()) {
+                text.append(PREFIX).append("step_last_duration_seconds{step=\"").append(escapeLabel(step.step())).append("\"} ")
+                        .append(format(step.durationMs() / 1000.)).append('\n');
+            }
+        }
+        summary(text, "run_duration_seconds", "run", "Supervision run durations since the daemon start", LatencyStats.Category.RUN);
+        summary(text, "scenario_duration_seconds", "scenario", "Scenario durations since the daemon start", LatencyStats.Category.SCENARIO);
+        summary(text, "step_duration_seconds", "step", "Step durations since the daemon start", LatencyStats.Category.STEP);
+        summary(text, "endpoint_duration_seconds", "endpoint", "HTTP call durations since the daemon start", LatencyStats.Category.ENDPOINT);
+        summary(text, "phase_duration_seconds", "phase", "Case and study creation phase durations since the daemon start", LatencyStats.Category.PHASE);
+        return text.toString();
+    }
+
+    private static void gauge(StringBuilder text, String name, String help, double value) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(" gauge\n");
+        text.append(PREFIX).append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    private static void summary(StringBuilder text, String name, String label, String help, LatencyStats.Category category) {
+        Map<String, LatencyStats.Summary> summaries = LatencyStats.getInstance(category).getSummaries();
+        if (summaries.isEmpty()) {
+            return;
+        }
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(" summary\n");
+        summaries.forEach((key, summary) -> {
+            String labelValue = label + "=\"" + escapeLabel(key) + "\"";
+            double[] values = {summary.p50Ms(), summary.p90Ms(), summary.p95Ms(), summary.p99Ms()};
+            for (int i = 0; i < QUANTILES.length; i++) {
+                text.append(PREFIX).append(name).append('{').append(labelValue).append(",quantile=\"").append(QUANTILES[i]).append("\"} ")
+                        .append(format(values[i] / 1000.)).append('\n');
+            }
+            text.append(PREFIX).append(name).append("_sum{").append(labelValue).append("} ")
+                    .append(format(summary.meanMs() * summary.count() / 1000.)).append('\n');
+            text.append(PREFIX).append(name).append("_count{").append(labelValue).append("} ").append(summary.count()).append('\n');
+        });
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // --------------------------------------------------------
+    private String runs() throws JsonProcessingException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("cucumber", daemon.getDescription());
+        root.put("intervalSec", daemon.getInterval().toSeconds());
+        root.put("passed", daemon.getPassedRuns());
+        root.put("failed", daemon.getFailedRuns());
+        ArrayNode runs = root.putArray("runs");
+        for (SupervisionDaemon.RunResult run : daemon.getHistory()) {
+            ObjectNode runNode = runs.addObject();
+            runNode.put("id", run.id());
+            runNode.put("start", run.start().toString());
+            runNode.put("durationMs", run.durationMs());
+            runNode.put("passed", run.passed());
+            ObjectNode steps = runNode.putObject("stepsMs");
+            run.steps().forEach(step -> steps.put(step.step(), step.durationMs()));
+        }
+        return mapper.writeValueAsString(root);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.directory;
+
+import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.common.Notification;
+import org.gridsuite.bddtests.common.NotificationHub;
+import org.gridsuite.bddtests.common.NotificationWaiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Client-side index of the directory elements, keyed by (user, directory uuid, type, name): a directory is listed once
+// per user, then its entries are used until a directory notification about it invalidates them (or a safety TTL expires).
+// An element missing from a listing triggers one new listing (its creation notification may have been missed,
+// ex: socket not connected yet), so that a stale listing cannot give a false "not found".
+// Bounded: the least recently used directories are evicted beyond a maximum number of indexed elements.
+final class DirectoryElementIndex {
+
+    private record Listing(Map<String, String> elementUuids, long loadedAtNanos) {
+    }
+
+    // the elements visible in a directory depend on the user
+    private record ListingKey(String userId, String directoryUuid) {
+    }
+
+    private static final String ROOT_DIRECTORIES = "";
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final long DEFAULT_TTL_MS = 60000;
+    // directory notification headers
+    private static final String HEADER_DIRECTORIES_INFOS = "directoriesInfos";
+    private static final String HEADER_DIRECTORY_UUID = "directoryUuid";
+    private static final String HEADER_IS_ROOT_DIRECTORY = "isRootDirectory";
+
+    // access order, for LRU eviction
+    private final LinkedHashMap<ListingKey, Listing> listings = new LinkedHashMap<>(16, 0.75f, true);
+    private int entryCount = 0;
+    // incremented on each invalidation, so that a listing loaded meanwhile is not kept
+    private long generation = 0;
+    private boolean subscribed = false;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryElementIndex.class);
+
+    String getRootDirectoryId(String userId, String directoryName, Supplier<Flux<DirectoryElement>> loader) {
+        return lookup(new ListingKey(userId, ROOT_DIRECTORIES), key("DIRECTORY", directoryName), loader);
+    }
+
+    String getElementId(String userId, String directoryUuid, String elementType, String elementName, Supplier<Flux<DirectoryElement>> loader) {
+        return lookup(new ListingKey(userId, directoryUuid), key(elementType, elementName), loader);
+    }
+
+    private String lookup(ListingKey directoryKey, String elementKey, Supplier<Flux<DirectoryElement>> loader) {
+        subscribe();
+        long loadGeneration;
+        synchronized (this) {
+            Listing listing = listings.get(directoryKey);
+            if (listing != null && System.nanoTime() - listing.loadedAtNanos() < getTtlNanos()) {
+                String elementUuid = listing.elementUuids().get(elementKey);
+                if (elementUuid != null) {
+                    return elementUuid;
+                }
+                // miss in a fresh listing: listed again
+            }
+            loadGeneration = generation;
+        }
+        return load(directoryKey, elementKey, loader, loadGeneration);
+    }
+
+    private String load(ListingKey directoryKey, String elementKey, Supplier<Flux<DirectoryElement>> loader, long loadGeneration) {
+        // one listing fills the index for the whole directory
+        Map<String, String> elementUuids = new HashMap<>();
+        List<DirectoryElement> elements = loader.get().collectList().block();
+        if (elements != null) {
+            elements.forEach(e -> elementUuids.putIfAbsent(key(e.getType(), e.getElementName()), e.getElementUuid()));
+        }
+        synchronized (this) {
+            if (loadGeneration == generation) {
+                put(directoryKey, new Listing(elementUuids, System.nanoTime()));
+            }
+        }
+        return elementUuids.get(elementKey);
+    }
+
+    private void put(ListingKey directoryKey, Listing listing) {
+        Listing previous = listings.put(directoryKey, listing);
+        entryCount += listing.elementUuids().size() - (previous != null ? previous.elementUuids().size() : 0);
+        int maxEntries = getMaxEntries();
+        Iterator<Map.Entry<ListingKey, Listing>> eldest = listings.entrySet().iterator();
+        while (entryCount > maxEntries && listings.size() > 1 && eldest.hasNext()) {
+            Map.Entry<ListingKey, Listing> entry = eldest.next();
+            if (!entry.getKey().equals(directoryKey)) {
+                entryCount -= entry.getValue().elementUuids().size();
+                eldest.remove();
+            }
+        }
+    }
+
+    void invalidateRootDirectories() {
+        invalidate(ROOT_DIRECTORIES);
+    }
+
+    // for all the users
+    synchronized void invalidate(String directoryUuid) {
+        generation++;
+        Iterator<Map.Entry<ListingKey, Listing>> entries = listings.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<ListingKey, Listing> entry = entries.next();
+            if (entry.getKey().directoryUuid().equals(directoryUuid)) {
+                entryCount -= entry.getValue().elementUuids().size();
+                entries.remove();
+                LOGGER.debug("Directory index invalidated for '{}'", entry.getKey());
+            }
+        }
+    }
+
+    private void onNotification(Notification notification) {
+        notification.getEmbeddedHeaderValues(HEADER_DIRECTORIES_INFOS, "uuid").forEach(this::invalidate);
+        String directoryUuid = notification.getHeader(HEADER_DIRECTORY_UUID);
+        if (directoryUuid != null) {
+            invalidate(directoryUuid);
+        }
+        if (Boolean.parseBoolean(notification.getHeader(HEADER_IS_ROOT_DIRECTORY))) {
+            invalidate(ROOT_DIRECTORIES);
+        }
+    }
+
+    private synchronized void subscribe() {
+        if (!subscribed) {
+            NotificationHub.getInstance().addListener(NotificationWaiter.getDirectoryNotificationURI(), this::onNotification);
+            subscribed = true;
+        }
+    }
+
+    private static String key(String type, String name) {
+        return type.toUpperCase(Locale.ROOT) + "/" + name.toLowerCase(Locale.ROOT);
+    }
+
+    private static int getMaxEntries() {
+        String value = EnvProperties.getInstance().getProp("directory_index_max_entries");
+        return value != null ? Integer.parseInt(value.trim()) : DEFAULT_MAX_ENTRIES;
+    }
+
+    private static long getTtlNanos() {
+        String value = EnvProperties.getInstance().getProp("directory_index_ttl_ms");
+        return (value != null ? Long.parseLong(value.trim()) : DEFAULT_TTL_MS) * 1_000_000L;
+    }
+}
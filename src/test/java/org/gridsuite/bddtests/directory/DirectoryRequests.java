@@ -16,18 +16,21 @@ import org.slf4j.LoggerFactory;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public final class DirectoryRequests {
 
-    public static synchronized DirectoryRequests getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new DirectoryRequests();
-        }
-        return INSTANCE;
+    public static DirectoryRequests getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final DirectoryRequests INSTANCE = new DirectoryRequests();
     }
 
-    private static DirectoryRequests INSTANCE = null;
     private final WebClient webClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DirectoryElementIndex elementIndex = new DirectoryElementIndex();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryRequests.class);
 
@@ -43,104 +46,103 @@ public final class DirectoryRequests {
                 .bodyToFlux(DirectoryElement.class);
     }
 
+    public Mono<String> getRootDirectoryIdAsync(String userId, String directoryName) {
+        // iterate through the stream, until the wanted directory (flux disposal)
+        return requestRootDirectory(userId)
+                .doOnNext(dir -> LOGGER.info("getRootDirectoryId '{}'", dir))
+                .filter(dir -> dir.getElementName().equalsIgnoreCase(directoryName))
+                .next()
+                .map(DirectoryElement::getElementUuid);
+    }
+
     public String getRootDirectoryId(String userId, String directoryName) {
-        final String[] dirId = {null};
-
-        // iterate through the stream
-        DirectoryRequests.getInstance().requestRootDirectory(userId).doOnNext(
-                        dir -> LOGGER.info("getRootDirectoryId '{}'", dir)
-                )
-                .takeUntil(dir -> {
-                            if (dir.getElementName().equalsIgnoreCase(directoryName)) {
-                                dirId[0] = dir.getElementUuid();
-                                return true;    // exit condition (flux disposal)
-                            } else {
-                                return false;
-                            }
-                        }
-                )
-                .blockLast(); // this is a blocking subscribe
-        return dirId[0];
+        return getRootDirectoryIdAsync(userId, directoryName).block();
     }
 
-    public String getElementId(String userId, String directoryId, String elementType, String elementName) {
-        final String[] eltId = {null};
+    // same, from the client-side index (only listed when unknown or invalidated by a notification)
+    public String findRootDirectoryId(String userId, String directoryName) {
+        return elementIndex.getRootDirectoryId(userId, directoryName, () -> requestRootDirectory(userId));
+    }
 
-        // iterate through the stream
-        webClient.get()
+    public Flux<DirectoryElement> getElementsAsync(String userId, String directoryId) {
+        return webClient.get()
                 .uri("directories/" + directoryId + "/elements")
                 .header("userId", userId)
                 .retrieve()
-                .bodyToFlux(DirectoryElement.class)
+                .bodyToFlux(DirectoryElement.class);
+    }
+
+    public Mono<String> getElementIdAsync(String userId, String directoryId, String elementType, String elementName) {
+        // iterate through the stream, until the wanted element (flux disposal)
+        return getElementsAsync(userId, directoryId)
                 .doOnNext(elt -> LOGGER.info("getElementId '{}'", elt))
-                .takeUntil(elt -> {
-                            if (elt.getElementName().equalsIgnoreCase(elementName)
-                                    && elt.getType().equalsIgnoreCase(elementType)) {
-                                eltId[0] = elt.getElementUuid();
-                                return true;    // exit condition (flux disposal)
-                            } else {
-                                return false;
-                            }
-                        }
-                )
-                .blockLast(); // this is a blocking subscribe
-        return eltId[0];
+                .filter(elt -> elt.getElementName().equalsIgnoreCase(elementName)
+                        && elt.getType().equalsIgnoreCase(elementType))
+                .next()
+                .map(DirectoryElement::getElementUuid);
     }
 
-    public String createRootDirectory(String dirName, String user, String desc) {
+    public String getElementId(String userId, String directoryId, String elementType, String elementName) {
+        return getElementIdAsync(userId, directoryId, elementType, elementName).block();
+    }
+
+    // same, from the client-side index (only listed when unknown or invalidated by a notification)
+    public String findElementId(String userId, String directoryId, String elementType, String elementName) {
+        return elementIndex.getElementId(userId, directoryId, elementType, elementName, () -> getElementsAsync(userId, directoryId));
+    }
+
+    public Mono<String> createRootDirectoryAsync(String dirName, String user, String desc) {
         // create body (json tree)
-        ObjectMapper mapper = new ObjectMapper();
         ObjectNode body = mapper.createObjectNode();
         body.put("elementName", dirName);
         body.put("owner", user);
         body.put("description", desc);
 
-        String jsonResponse = webClient.post()
+        return webClient.post()
                 .uri("root-directories")
                 .header("userId", user)
                 .body(BodyInserters.fromValue(body.toString()))
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
-        try {
-            if (jsonResponse != null) {
-                JsonNode rootValue = mapper.readTree(jsonResponse);
-                if (rootValue.has("elementUuid")) {
-                    return rootValue.get("elementUuid").asText();
-                }
-            }
-        } catch (JsonProcessingException je) {
-            return null;
-        }
-        return null;
+                .flatMap(this::getElementUuid)
+                // visible at once to the other scenarios, without waiting for the notification
+                .doOnNext(uuid -> elementIndex.invalidateRootDirectories());
     }
 
-    public String createDirectory(String dirName, String parentId, String owner) {
+    public String createRootDirectory(String dirName, String user, String desc) {
+        return createRootDirectoryAsync(dirName, user, desc).block();
+    }
+
+    public Mono<String> createDirectoryAsync(String dirName, String parentId, String owner) {
         // create body (json tree)
-        ObjectMapper mapper = new ObjectMapper();
         ObjectNode body = mapper.createObjectNode();
         body.put("elementName", dirName);
         body.put("owner", owner);
         body.put("type", "DIRECTORY");
         body.putNull("elementUuid");
 
-        String jsonResponse = webClient.post()
+        return webClient.post()
                 .uri("directories/" + parentId + "/elements")
                 .header("userId", owner)
                 .body(BodyInserters.fromValue(body.toString()))
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .flatMap(this::getElementUuid);
+    }
+
+    public String createDirectory(String dirName, String parentId, String owner) {
+        return createDirectoryAsync(dirName, parentId, owner).block();
+    }
+
+    private Mono<String> getElementUuid(String jsonResponse) {
         try {
-            if (jsonResponse != null) {
-                JsonNode rootValue = mapper.readTree(jsonResponse);
-                if (rootValue.has("elementUuid")) {
-                    return rootValue.get("elementUuid").asText();
-                }
+            JsonNode rootValue = mapper.readTree(jsonResponse);
+            if (rootValue.has("elementUuid")) {
+                return Mono.just(rootValue.get("elementUuid").asText());
             }
         } catch (JsonProcessingException je) {
-            return null;
+            return Mono.empty();
         }
-        return null;
+        return Mono.empty();
     }
 }
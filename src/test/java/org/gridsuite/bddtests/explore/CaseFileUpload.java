@@ -0,0 +1,149 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.explore;
+
+import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Case file part of a multipart upload, streamed in chunks from the file channel (never fully in memory),
+// optionally compressed on the fly (gzip or zip, the case server importing compressed cases by their extension).
+// Files which are already archives (.gz, .zip, ...) are sent as they are.
+// Settings from the *_env.properties file:
+//   case_upload_compression=none|gzip|zip  (default none)
+//   case_upload_chunk_size_kb=256
+// Upload metrics (see record*): body send duration and throughput, time to first response byte.
+final class CaseFileUpload {
+
+    enum Compression {
+        NONE(""),
+        GZIP(".gz"),
+        ZIP(".zip");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    static final String UPLOAD_METRIC = "case upload (body sent)";
+    static final String TTFB_METRIC = "case upload (time to first byte)";
+
+    private static final int DEFAULT_CHUNK_SIZE_KB = 256;
+    private static final String[] ARCHIVE_EXTENSIONS = {".gz", ".zip", ".bz2", ".xz", ".zst"};
+
+    private final Path file;
+    private final Compression compression;
+    private final int chunkSize;
+    private final long fileSize;
+    private final AtomicLong sentBytes = new AtomicLong();
+    private volatile long startNanos;
+    private volatile long sentNanos;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CaseFileUpload.class);
+
+    CaseFileUpload(Path file) {
+        this.file = file;
+        Compression requested = getCompressionSetting();
+        this.compression = isArchive(file) ? Compression.NONE : requested;
+        String chunkSizeProp = EnvProperties.getInstance().getProp("case_upload_chunk_size_kb");
+        this.chunkSize = (chunkSizeProp != null ? Integer.parseInt(chunkSizeProp.trim()) : DEFAULT_CHUNK_SIZE_KB) * 1024;
+        try {
+            this.fileSize = Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read case file " + file, e);
+        }
+    }
+
+    String getFilename() {
+        return file.getFileName().toString() + compression.extension;
+    }
+
+    // cold publisher: the file is read (and compressed) only when the request body is written
+    Flux<DataBuffer> getContent() {
+        Flux<DataBuffer> content = switch (compression) {
+            case NONE -> DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, chunkSize);
+            case GZIP -> compressed(output -> new GZIPOutputStream(output, chunkSize));
+            case ZIP -> compressed(output -> {
+                ZipOutputStream zip = new ZipOutputStream(output);
+                zip.putNextEntry(new ZipEntry(file.getFileName().toString()));
+                return zip;
+            });
+        };
+        return content
+                .doOnSubscribe(s -> startNanos = System.nanoTime())
+                .doOnNext(buffer -> sentBytes.addAndGet(buffer.readableByteCount()))
+                .doOnComplete(() -> sentNanos = System.nanoTime());
+    }
+
+    // called when the response headers are received
+    void recordResponse() {
+        long now = System.nanoTime();
+        if (startNanos == 0) {
+            return;
+        }
+        long sendDuration = (sentNanos != 0 ? sentNanos : now) - startNanos;
+        long ttfb = now - startNanos;
+        LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).record(UPLOAD_METRIC, sendDuration);
+        LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).record(TTFB_METRIC, ttfb);
+        double sendSeconds = Math.max(sendDuration, 1) / 1e9;
+        LOGGER.info("Case upload '{}' ({}): {} bytes sent for a {} bytes file, in {} ms ({} MB/s, {} MB/s of case file), time to first byte {} ms",
+                getFilename(), compression.name().toLowerCase(Locale.ROOT), sentBytes.get(), fileSize,
+                sendDuration / 1_000_000, String.format(Locale.ROOT, "%.1f", sentBytes.get() / sendSeconds / 1e6),
+                String.format(Locale.ROOT, "%.1f", fileSize / sendSeconds / 1e6), ttfb / 1_000_000);
+    }
+
+    private interface CompressingStreamFactory {
+        OutputStream create(OutputStream output) throws IOException;
+    }
+
+    // the file is read and compressed on a bounded-elastic thread, into chunkSize buffers (with backpressure)
+    private Flux<DataBuffer> compressed(CompressingStreamFactory factory) {
+        return DataBufferUtils.outputStreamPublisher(output -> {
+            try (InputStream input = Files.newInputStream(file);
+                 OutputStream compressing = factory.create(output)) {
+                input.transferTo(compressing);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot compress case file " + file, e);
+            }
+        }, DefaultDataBufferFactory.sharedInstance, task -> Schedulers.boundedElastic().schedule(task), chunkSize);
+    }
+
+    private static Compression getCompressionSetting() {
+        String compressionProp = EnvProperties.getInstance().getProp("case_upload_compression");
+        return compressionProp != null ? Compression.valueOf(compressionProp.trim().toUpperCase(Locale.ROOT)) : Compression.NONE;
+    }
+
+    private static boolean isArchive(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : ARCHIVE_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
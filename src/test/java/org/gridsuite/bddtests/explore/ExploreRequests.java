@@ -9,26 +9,26 @@ package org.gridsuite.bddtests.explore;
 import org.gridsuite.bddtests.common.EnvProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
 import java.nio.file.Path;
 
 public final class ExploreRequests {
 
-    public static synchronized ExploreRequests getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new ExploreRequests();
-        }
-        return INSTANCE;
+    public static ExploreRequests getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final ExploreRequests INSTANCE = new ExploreRequests();
     }
 
-    private static ExploreRequests INSTANCE = null;
     private final WebClient webClient;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExploreRequests.class);
@@ -37,64 +37,77 @@ public final class ExploreRequests {
         webClient = EnvProperties.getInstance().getWebClient(EnvProperties.MicroService.EXPLORE_SERVER);
     }
 
-    public void createStudyFromCase(String studyName, String caseId, String description, String directoryId, String userId,
-                                    String caseFormat, String paramsAsRequestBody, boolean duplicateCase) {
+    public Mono<Void> createStudyFromCaseAsync(String studyName, String caseId, String description, String directoryId, String userId,
+                                               String caseFormat, String paramsAsRequestBody, boolean duplicateCase) {
         String path = UriComponentsBuilder.fromPath(
                         "explore/studies/{studyName}/cases/{caseUuid}?duplicateCase={duplicateCase}&description={description}&parentDirectoryUuid={parentDirectoryUuid}&caseFormat={caseFormat}")
                 .buildAndExpand(studyName, caseId, duplicateCase, description, directoryId, caseFormat)
                 .toUriString();
         LOGGER.info("createStudyFromCase uri: '{}'", path);
 
-        if (paramsAsRequestBody != null) {
-            webClient.post()
-                    .uri(path)
-                    .header("userId", userId)
-                    .body(BodyInserters.fromValue(paramsAsRequestBody))
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-        } else {
-            webClient.post()
-                    .uri(path)
-                    .header("userId", userId)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-        }
+        WebClient.RequestBodySpec request = webClient.post()
+                .uri(path)
+                .header("userId", userId);
+        WebClient.RequestHeadersSpec<?> requestWithBody = paramsAsRequestBody != null
+                ? request.body(BodyInserters.fromValue(paramsAsRequestBody))
+                : request;
+        return requestWithBody.retrieve()
+                .bodyToMono(String.class)
+                .then();
     }
 
-    public void createCaseFromFile(String caseName, Path filePath, String description, String directoryId, String userId) {
+    public void createStudyFromCase(String studyName, String caseId, String description, String directoryId, String userId,
+                                    String caseFormat, String paramsAsRequestBody, boolean duplicateCase) {
+        createStudyFromCaseAsync(studyName, caseId, description, directoryId, userId, caseFormat, paramsAsRequestBody, duplicateCase).block();
+    }
+
+    public Mono<Void> createCaseFromFileAsync(String caseName, Path filePath, String description, String directoryId, String userId) {
         String path = UriComponentsBuilder.fromPath(
                         "explore/cases/{caseName}?description={description}&parentDirectoryUuid={parentDirectoryUuid}")
                 .buildAndExpand(caseName, description, directoryId)
                 .toUriString();
         LOGGER.info("createCaseFromFile uri: '{}'", path);
 
+        // case file streamed in chunks from the file channel, optionally compressed (see CaseFileUpload)
+        CaseFileUpload upload = new CaseFileUpload(filePath);
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
-        Resource caseResource = new FileSystemResource(filePath);
-        builder.part("caseFile", caseResource);
+        builder.asyncPart("caseFile", upload.getContent(), DataBuffer.class)
+                .filename(upload.getFilename())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM);
 
-        webClient.post()
+        return webClient.post()
                 .uri(path)
                 .header("userId", userId)
                 .contentType(MediaType.MULTIPART_FORM_DATA)
                 .body(BodyInserters.fromMultipartData(builder.build()))
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+                .exchangeToMono(response -> {
+                    upload.recordResponse();
+                    // same error handling as retrieve()
+                    return response.statusCode().isError()
+                            ? response.createError().then()
+                            : response.releaseBody();
+                });
     }
 
-    public void removeElement(String eltId, String userId) {
+    public void createCaseFromFile(String caseName, Path filePath, String description, String directoryId, String userId) {
+        createCaseFromFileAsync(caseName, filePath, description, directoryId, userId).block();
+    }
+
+    public Mono<Void> removeElementAsync(String eltId, String userId) {
         // remove a single element or a whole directory (RECURSIVELY)
         String path = UriComponentsBuilder.fromPath("explore/elements/{elementUuid}")
                 .buildAndExpand(eltId)
                 .toUriString();
 
-        webClient.delete()
+        return webClient.delete()
                 .uri(path)
                 .header("userId", userId)
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .then();
+    }
+
+    public void removeElement(String eltId, String userId) {
+        removeElementAsync(eltId, userId).block();
     }
 }
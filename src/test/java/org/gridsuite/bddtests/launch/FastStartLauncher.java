@@ -0,0 +1,80 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.launch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gridsuite.bddtests.RunCucumberTest;
+import org.gridsuite.bddtests.metrics.StartupTiming;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+// Runs RunCucumberTest (same junit-platform configuration as 'mvn test': cucumber.properties, junit-platform.properties
+// and -D system properties) without Maven, so that the JVM can start from an AOT cache (see the fast-start profile
+// of the pom.xml: training run with -XX:AOTCacheOutput, then runs with -XX:AOTCache).
+// The startup timings are logged and written in target/startup-timing.json (or -Dstartup.report=path).
+public final class FastStartLauncher {
+    private FastStartLauncher() {
+        throw new UnsupportedOperationException("FastStartLauncher is a main class and cannot be instantiated");
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FastStartLauncher.class);
+
+    public static void main(String[] args) throws IOException {
+        long mainStartMs = StartupTiming.getUptimeMs();
+        LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(RunCucumberTest.class))
+                .build();
+        SummaryGeneratingListener listener = new SummaryGeneratingListener();
+        try (LauncherSession session = LauncherFactory.openSession()) {
+            session.getLauncher().execute(request, listener);
+        }
+        TestExecutionSummary summary = listener.getSummary();
+        long totalMs = StartupTiming.getUptimeMs();
+
+        String aotCache = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(arg -> arg.startsWith("-XX:AOTCache"))
+                .findFirst()
+                .orElse("none");
+        LOGGER.info("Fast start ({}): main after {} ms, first request after {} ms, total {} ms, {} tests passed, {} failed",
+                aotCache, mainStartMs, StartupTiming.getTimeToFirstRequestMs(), totalMs,
+                summary.getTestsSucceededCount(), summary.getTotalFailureCount());
+        writeReport(Path.of(System.getProperty("startup.report", "target/startup-timing.json")),
+                aotCache, mainStartMs, totalMs, summary);
+
+        // exit explicitly: the notification sockets and pools are not daemon threads (and the AOT cache is written on exit)
+        System.exit(summary.getTotalFailureCount() == 0 ? 0 : 1);
+    }
+
+    private static void writeReport(Path reportFile, String aotCache, long mainStartMs, long totalMs, TestExecutionSummary summary) throws IOException {
+        ObjectNode report = new ObjectMapper().createObjectNode();
+        report.put("aotCache", aotCache);
+        report.put("jvmStartToMainMs", mainStartMs);
+        report.put("timeToFirstRequestMs", StartupTiming.getTimeToFirstRequestMs());
+        report.put("totalMs", totalMs);
+        report.put("testsSucceeded", summary.getTestsSucceededCount());
+        report.put("testsFailed", summary.getTotalFailureCount());
+        if (reportFile.getParent() != null) {
+            Files.createDirectories(reportFile.getParent());
+        }
+        Files.writeString(reportFile, new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(report));
+    }
+}
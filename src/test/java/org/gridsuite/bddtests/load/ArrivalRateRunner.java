@@ -0,0 +1,177 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.load;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gridsuite.bddtests.common.ConnectionPools;
+import org.gridsuite.bddtests.common.NotificationHub;
+import org.gridsuite.bddtests.metrics.BaselineGate;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.gridsuite.bddtests.metrics.StepLatencyPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Open-model load test: runs of the tagged scenarios start at a given arrival rate (fixed, or ramped linearly
+// from load.rate to load.target_rate), whether or not the previous ones are finished, so that a slow server
+// makes the number of runs in flight grow instead of silently lowering the load (as a closed model does).
+// The response time is measured from the intended start of each run (coordinated omission correction: a late
+// start, ex: a saturated client, counts in the latency), the service time from its actual start.
+// Dropped arrivals (beyond load.max_in_flight) were never served: they are recorded in the response time with the
+// time from their intended start to the end of the test, a lower bound of their latency.
+// mvn test-compile exec:java -Dexec.mainClass=org.gridsuite.bddtests.load.ArrivalRateRunner -Dexec.classpathScope=test
+//     -Dload.rate=0.5 [-Dload.target_rate=2 -Dload.ramp_up_sec=120] -Dload.duration_sec=600 [-Dload.arrivals=poisson]
+public final class ArrivalRateRunner {
+    private ArrivalRateRunner() {
+        throw new UnsupportedOperationException("ArrivalRateRunner is a main class and cannot be instantiated");
+    }
+
+    private static final String RESPONSE_TIME = "response time (from intended start)";
+    private static final String SERVICE_TIME = "service time";
+    private static final int DEFAULT_MAX_IN_FLIGHT = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArrivalRateRunner.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        // runs per second
+        double rate = Double.parseDouble(System.getProperty("load.rate", "1"));
+        double targetRate = Double.parseDouble(System.getProperty("load.target_rate", String.valueOf(rate)));
+        Duration rampUp = Duration.ofSeconds(Long.getLong("load.ramp_up_sec", 0));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration_sec", 60));
+        // uniform: constant interval, poisson: exponentially distributed intervals (independent arrivals)
+        boolean poisson = "poisson".equalsIgnoreCase(System.getProperty("load.arrivals", "uniform"));
+        // protection of the load generator: arrivals beyond this limit are dropped (and counted as failures)
+        int maxInFlight = Integer.getInteger("load.max_in_flight", DEFAULT_MAX_IN_FLIGHT);
+        if (rate <= 0 || targetRate <= 0 || duration.isZero()) {
+            throw new IllegalArgumentException("load.rate, load.target_rate and load.duration_sec must be > 0");
+        }
+        ScenarioLauncher launcher = ScenarioLauncher.fromSystemProperties();
+        LOGGER.info("Arrival rate load test: {} -> {} runs/s (ramp-up {} s, {} arrivals), duration {} s: {}",
+                rate, targetRate, rampUp.toSeconds(), poisson ? "poisson" : "uniform", duration.toSeconds(), launcher.getDescription());
+
+        for (LatencyStats.Category category : LatencyStats.Category.values()) {
+            LatencyStats.getInstance(category).reset();
+        }
+        LatencyStats runStats = LatencyStats.getInstance(LatencyStats.Category.RUN);
+        LongAdder passed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        // only used by the scheduling (main) thread
+        List<Long> droppedIntendedStarts = new ArrayList<>();
+        AtomicInteger inFlight = new AtomicInteger();
+        LongAccumulator maxObservedInFlight = new LongAccumulator(Math::max, 0);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long maxSchedulingLagNanos = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long intendedStart = start;
+            while (intendedStart < end) {
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                maxSchedulingLagNanos = Math.max(maxSchedulingLagNanos, System.nanoTime() - intendedStart);
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    dropped.increment();
+                    droppedIntendedStarts.add(intendedStart);
+                } else {
+                    maxObservedInFlight.accumulate(inFlight.get());
+                    final long scheduled = intendedStart;
+                    executor.submit(() -> {
+                        try {
+                            long actualStart = System.nanoTime();
+                            boolean ok = runSafely(launcher);
+                            long finished = System.nanoTime();
+                            runStats.record(RESPONSE_TIME, finished - scheduled);
+                            runStats.record(SERVICE_TIME, finished - actualStart);
+                            (ok ? passed : failed).increment();
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+                }
+                intendedStart += nextIntervalNanos(currentRate(rate, targetRate, rampUp, intendedStart - start), poisson);
+            }
+            LOGGER.info("All arrivals scheduled, waiting for {} runs in flight", inFlight.get());
+        } // waits for the runs in flight
+        long finished = System.nanoTime();
+        Duration elapsed = Duration.ofNanos(finished - start);
+        droppedIntendedStarts.forEach(intendedStart -> runStats.record(RESPONSE_TIME, finished - intendedStart));
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("rate", rate);
+        settings.put("targetRate", targetRate);
+        settings.put("rampUpSec", rampUp.toSeconds());
+        settings.put("durationSec", duration.toSeconds());
+        settings.put("arrivals", poisson ? "poisson" : "uniform");
+        settings.put("maxInFlight", maxInFlight);
+        settings.put("cucumber", launcher.getDescription());
+        LoadReport report = new LoadReport("open", settings);
+        report.addRuns(passed.sum(), failed.sum() + dropped.sum(), elapsed);
+        report.getRoot().put("dropped", dropped.sum());
+        report.getRoot().put("maxInFlight", maxObservedInFlight.get());
+        report.getRoot().put("maxSchedulingLagMs", TimeUnit.NANOSECONDS.toMillis(maxSchedulingLagNanos));
+        LOGGER.info("{} arrivals dropped, max {} runs in flight, max scheduling lag {} ms",
+                dropped.sum(), maxObservedInFlight.get(), TimeUnit.NANOSECONDS.toMillis(maxSchedulingLagNanos));
+        LOGGER.info("'{}' percentiles include the {} dropped arrivals (until the end of the test), '{}' only the served runs",
+                RESPONSE_TIME, dropped.sum(), SERVICE_TIME);
+        report.addLatencies("runs", runStats.getSummaries());
+        if (report.getRoot().path("runs").path(RESPONSE_TIME) instanceof ObjectNode responseTime) {
+            responseTime.put("dropped", dropped.sum());
+        }
+        report.addLatencies("scenarios", LatencyStats.getInstance(LatencyStats.Category.SCENARIO).getSummaries());
+        report.addLatencies("steps", LatencyStats.getInstance(LatencyStats.Category.STEP).getSummaries());
+        report.addLatencies("endpoints", LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).getSummaries());
+        report.addLatencies("phases", LatencyStats.getInstance(LatencyStats.Category.PHASE).getSummaries());
+        StepLatencyPlugin.writeReports(Path.of(System.getProperty("load.step_latency_dir", "target/step-latency")));
+        report.write(Path.of(System.getProperty("load.report", "target/load-arrival-report.json")));
+
+        NotificationHub.getInstance().close();
+        ConnectionPools.getInstance().dispose();
+        BaselineGate.checkFromSystemProperties();
+    }
+
+    private static boolean runSafely(ScenarioLauncher launcher) {
+        try {
+            return launcher.runOnce();
+        } catch (RuntimeException e) {
+            LOGGER.error("Run failure: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    // linear ramp from 'rate' to 'targetRate', then constant
+    private static double currentRate(double rate, double targetRate, Duration rampUp, long elapsedNanos) {
+        if (rampUp.isZero() || elapsedNanos >= rampUp.toNanos()) {
+            return targetRate;
+        }
+        return rate + (targetRate - rate) * elapsedNanos / rampUp.toNanos();
+    }
+
+    private static long nextIntervalNanos(double ratePerSec, boolean poisson) {
+        double meanNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSec;
+        if (poisson) {
+            return Math.max(1, (long) (-meanNanos * Math.log(1 - ThreadLocalRandom.current().nextDouble())));
+        }
+        return Math.max(1, (long) meanNanos);
+    }
+}
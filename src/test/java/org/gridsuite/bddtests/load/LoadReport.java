@@ -0,0 +1,65 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+// End of load test report: throughput and latency percentiles, in the logs and as JSON in target/
+final class LoadReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ObjectNode root = MAPPER.createObjectNode();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadReport.class);
+
+    LoadReport(String mode, Map<String, Object> settings) {
+        root.put("mode", mode);
+        root.set("settings", MAPPER.valueToTree(settings));
+    }
+
+    ObjectNode getRoot() {
+        return root;
+    }
+
+    void addRuns(long passed, long failed, Duration elapsed) {
+        double throughput = elapsed.toMillis() > 0 ? (passed + failed) * 1000. / elapsed.toMillis() : 0;
+        root.put("elapsedMs", elapsed.toMillis());
+        root.put("passed", passed);
+        root.put("failed", failed);
+        root.put("throughputPerSec", throughput);
+        LOGGER.info("{} runs ({} passed, {} failed) in {} s: {} runs/s",
+                passed + failed, passed, failed, elapsed.toSeconds(), String.format("%.3f", throughput));
+    }
+
+    void addLatencies(String name, Map<String, LatencyStats.Summary> summaries) {
+        root.set(name, MAPPER.valueToTree(summaries));
+        summaries.forEach((key, s) -> LOGGER.info("[{}] '{}': count={} mean={} p50={} p90={} p95={} p99={} max={} ms",
+                name, key, s.count(), s.meanMs(), s.p50Ms(), s.p90Ms(), s.p95Ms(), s.p99Ms(), s.maxMs()));
+    }
+
+    void write(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            MAPPER.writeValue(file.toFile(), root);
+            LOGGER.info("Load report written in '{}'", file.toAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("Cannot write load report '{}': {}", file, e.getMessage());
+        }
+    }
+}
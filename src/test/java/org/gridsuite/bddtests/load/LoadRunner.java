@@ -0,0 +1,108 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.load;
+
+import org.gridsuite.bddtests.common.ConnectionPools;
+import org.gridsuite.bddtests.common.NotificationHub;
+import org.gridsuite.bddtests.metrics.BaselineGate;
+import org.gridsuite.bddtests.metrics.LatencyStats;
+import org.gridsuite.bddtests.metrics.StepLatencyPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Closed-model load test: N virtual users (one virtual thread each) run the tagged scenarios in a loop,
+// with the same Gherkin steps as the supervision. Each run has its own cucumber runtime, hence its own TestContext.
+// mvn test-compile exec:java -Dexec.mainClass=org.gridsuite.bddtests.load.LoadRunner -Dexec.classpathScope=test
+//     -Dload.users=10 -Dload.ramp_up_sec=30 -Dload.duration_sec=300 [-Dload.iterations=0] [-Dload.tags=@tagSupervision]
+public final class LoadRunner {
+    private LoadRunner() {
+        throw new UnsupportedOperationException("LoadRunner is a main class and cannot be instantiated");
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadRunner.class);
+
+    public static void main(String[] args) throws InterruptedException {
+        int users = Integer.getInteger("load.users", 1);
+        Duration rampUp = Duration.ofSeconds(Long.getLong("load.ramp_up_sec", 0));
+        // 0: no time limit
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration_sec", 0));
+        // iterations per user, 0: no limit (then a duration is required)
+        int iterations = Integer.getInteger("load.iterations", duration.isZero() ? 1 : 0);
+        if (users <= 0 || (iterations <= 0 && duration.isZero())) {
+            throw new IllegalArgumentException("load.users must be > 0, and load.iterations or load.duration_sec must be set");
+        }
+        ScenarioLauncher launcher = ScenarioLauncher.fromSystemProperties();
+        LOGGER.info("Load test: {} users, ramp-up {} s, duration {} s, {} iterations per user: {}",
+                users, rampUp.toSeconds(), duration.toSeconds(), iterations, launcher.getDescription());
+
+        for (LatencyStats.Category category : LatencyStats.Category.values()) {
+            LatencyStats.getInstance(category).reset();
+        }
+        LongAdder passed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long start = System.nanoTime();
+        long deadline = duration.isZero() ? Long.MAX_VALUE : start + duration.toNanos();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int user = 0; user < users; user++) {
+                // users are started evenly during the ramp-up
+                long startDelay = rampUp.toNanos() * user / users;
+                executor.submit(() -> runUser(launcher, start + startDelay, deadline, iterations, passed, failed));
+            }
+        } // waits for all the users
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", users);
+        settings.put("rampUpSec", rampUp.toSeconds());
+        settings.put("durationSec", duration.toSeconds());
+        settings.put("iterations", iterations);
+        settings.put("cucumber", launcher.getDescription());
+        LoadReport report = new LoadReport("closed", settings);
+        report.addRuns(passed.sum(), failed.sum(), elapsed);
+        report.addLatencies("scenarios", LatencyStats.getInstance(LatencyStats.Category.SCENARIO).getSummaries());
+        report.addLatencies("steps", LatencyStats.getInstance(LatencyStats.Category.STEP).getSummaries());
+        report.addLatencies("endpoints", LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).getSummaries());
+        report.addLatencies("phases", LatencyStats.getInstance(LatencyStats.Category.PHASE).getSummaries());
+        StepLatencyPlugin.writeReports(Path.of(System.getProperty("load.step_latency_dir", "target/step-latency")));
+        report.write(Path.of(System.getProperty("load.report", "target/load-report.json")));
+
+        NotificationHub.getInstance().close();
+        ConnectionPools.getInstance().dispose();
+        BaselineGate.checkFromSystemProperties();
+    }
+
+    private static void runUser(ScenarioLauncher launcher, long startNanos, long deadline, int iterations, LongAdder passed, LongAdder failed) {
+        try {
+            long wait = startNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            for (int i = 0; (iterations <= 0 || i < iterations) && System.nanoTime() < deadline; i++) {
+                if (launcher.runOnce()) {
+                    passed.increment();
+                } else {
+                    failed.increment();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.error("Virtual user failure: {}", e.getMessage(), e);
+            failed.increment();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.load;
+
+import io.cucumber.core.cli.Main;
+import org.gridsuite.bddtests.metrics.StepLatencyPlugin;
+import org.gridsuite.bddtests.tracing.TracePlugin;
+
+// Runs the tagged scenarios once, in a new cucumber runtime: the step definitions and their TestContext are
+// new instances for each run, so concurrent runs (virtual users) do not share any scenario state.
+// Step and HTTP timings are recorded by the StepLatencyPlugin declared in cucumber.properties.
+// Also used by the supervision daemon (org.gridsuite.bddtests.daemon).
+public final class ScenarioLauncher {
+
+    private static final String DEFAULT_TAGS = "@tagSupervision";
+    private static final String DEFAULT_FEATURES = "classpath:org/gridsuite/bddtests";
+    private static final String GLUE = "org.gridsuite.bddtests";
+
+    private final String[] argv;
+    private final ClassLoader classLoader;
+
+    private ScenarioLauncher(String tags, String features) {
+        // the tags given here replace the cucumber.properties filter (which excludes the load test tags)
+        argv = new String[] {
+            "--glue", GLUE,
+            "--tags", tags,
+            features,
+        };
+        classLoader = Thread.currentThread().getContextClassLoader();
+        // a single step latency report is written at the end of the load test, not one per run
+        StepLatencyPlugin.disableRunReports();
+        TracePlugin.disableWaterfalls();
+    }
+
+    // -Dload.tags (default: @tagSupervision), -Dload.features (default: all the feature files)
+    static ScenarioLauncher fromSystemProperties() {
+        return of(System.getProperty("load.tags"), System.getProperty("load.features"));
+    }
+
+    // null tags or features: defaults
+    public static ScenarioLauncher of(String tags, String features) {
+        return new ScenarioLauncher(tags != null ? tags : DEFAULT_TAGS, features != null ? features : DEFAULT_FEATURES);
+    }
+
+    public String getDescription() {
+        return String.join(" ", argv);
+    }
+
+    // true if all the scenarios passed
+    public boolean runOnce() {
+        return Main.run(argv.clone(), classLoader) == 0;
+    }
+}
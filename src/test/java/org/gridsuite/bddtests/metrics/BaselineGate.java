@@ -0,0 +1,163 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Performance regression gate: the step and endpoint latency distributions of a run are saved as a baseline,
+// and later runs are compared to it on p95. A step/endpoint regresses when its p95 exceeds both the baseline p95
+// times 'max_ratio' and the baseline p95 plus 'max_delta_ms' (so that noise on fast calls is ignored).
+// Baseline steps/endpoints missing from the run are logged, and fail the run in strict mode.
+//   -Dbaseline.save=perf/baseline.json                 save the distributions of this run
+//   -Dbaseline.compare=perf/baseline.json              compare this run to a baseline, fail on regression
+//   -Dbaseline.strict=true                             also fail when baseline steps/endpoints were not run
+//   -Dbaseline.max_ratio=1.5 -Dbaseline.max_delta_ms=200 -Dbaseline.report=target/baseline-diff.json
+public final class BaselineGate {
+    private BaselineGate() {
+        throw new UnsupportedOperationException("BaselineGate is a utility class and cannot be instantiated");
+    }
+
+    public record Diff(String category, String name, long baselineCount, long currentCount,
+                       double baselineP95Ms, double currentP95Ms, double ratio, double deltaMs, boolean regressed) {
+    }
+
+    // 'missing': "category 'name'" of the baseline entries which are not in this run
+    public record Comparison(List<Diff> diffs, List<String> missing) {
+    }
+
+    private static final List<LatencyStats.Category> GATED_CATEGORIES = List.of(LatencyStats.Category.STEP, LatencyStats.Category.ENDPOINT);
+    private static final double DEFAULT_MAX_RATIO = 1.5;
+    private static final double DEFAULT_MAX_DELTA_MS = 200;
+    private static final String DEFAULT_REPORT = "target/baseline-diff.json";
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BaselineGate.class);
+
+    // no effect if neither baseline.save nor baseline.compare is set
+    public static void checkFromSystemProperties() {
+        String savePath = System.getProperty("baseline.save");
+        if (savePath != null) {
+            save(Path.of(savePath));
+        }
+        String comparePath = System.getProperty("baseline.compare");
+        if (comparePath != null) {
+            double maxRatio = Double.parseDouble(System.getProperty("baseline.max_ratio", String.valueOf(DEFAULT_MAX_RATIO)));
+            double maxDeltaMs = Double.parseDouble(System.getProperty("baseline.max_delta_ms", String.valueOf(DEFAULT_MAX_DELTA_MS)));
+            boolean strict = Boolean.getBoolean("baseline.strict");
+            Comparison comparison = compare(Path.of(comparePath), maxRatio, maxDeltaMs);
+            writeReport(Path.of(System.getProperty("baseline.report", DEFAULT_REPORT)), comparePath, maxRatio, maxDeltaMs, comparison);
+            comparison.missing().forEach(m -> LOGGER.warn("Baseline {} not run, not compared", m));
+            List<Diff> regressions = comparison.diffs().stream().filter(Diff::regressed).toList();
+            regressions.forEach(d -> LOGGER.error("p95 regression on {} '{}': {} ms -> {} ms (x{})",
+                    d.category(), d.name(), d.baselineP95Ms(), d.currentP95Ms(), String.format("%.2f", d.ratio())));
+            assertTrue(regressions.isEmpty(), regressions.size() + " p95 regression(s) against baseline " + comparePath);
+            assertTrue(!strict || comparison.missing().isEmpty(),
+                    comparison.missing().size() + " baseline step(s)/endpoint(s) not run (baseline.strict) " + comparePath);
+            LOGGER.info("No p95 regression against baseline '{}' ({} steps/endpoints compared, {} not run)",
+                    comparePath, comparison.diffs().size(), comparison.missing().size());
+        }
+    }
+
+    public static void save(Path file) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("savedAt", Instant.now().toString());
+        for (LatencyStats.Category category : GATED_CATEGORIES) {
+            root.set(key(category), MAPPER.valueToTree(LatencyStats.getInstance(category).getSummaries()));
+        }
+        try {
+            if (file.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+            }
+            MAPPER.writeValue(file.toFile(), root);
+            LOGGER.info("Performance baseline saved in '{}'", file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot save performance baseline " + file, e);
+        }
+    }
+
+    // steps/endpoints which are not in both the baseline and this run are not compared
+    public static Comparison compare(Path baselineFile, double maxRatio, double maxDeltaMs) {
+        JsonNode baseline;
+        try {
+            baseline = MAPPER.readTree(baselineFile.toFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read performance baseline " + baselineFile, e);
+        }
+        return compare(baseline, category -> LatencyStats.getInstance(category).getSummaries(), maxRatio, maxDeltaMs);
+    }
+
+    // package-private for the unit tests
+    static Comparison compare(JsonNode baseline, Function<LatencyStats.Category, Map<String, LatencyStats.Summary>> currentSummaries,
+                              double maxRatio, double maxDeltaMs) {
+        List<Diff> diffs = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        for (LatencyStats.Category category : GATED_CATEGORIES) {
+            Map<String, LatencyStats.Summary> current = currentSummaries.apply(category);
+            for (Iterator<Map.Entry<String, JsonNode>> it = baseline.path(key(category)).fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                LatencyStats.Summary now = current.get(entry.getKey());
+                if (now == null) {
+                    missing.add(key(category) + " '" + entry.getKey() + "'");
+                    continue;
+                }
+                long baselineCount = entry.getValue().path("count").asLong();
+                double baseP95 = entry.getValue().path("p95Ms").asDouble();
+                // no baseline p95 (sub-microsecond calls): the delta alone decides
+                double ratio = baseP95 > 0 ? now.p95Ms() / baseP95 : Double.POSITIVE_INFINITY;
+                double delta = now.p95Ms() - baseP95;
+                diffs.add(new Diff(key(category), entry.getKey(), baselineCount, now.count(), baseP95, now.p95Ms(), ratio, delta,
+                        isRegression(ratio, delta, maxRatio, maxDeltaMs)));
+            }
+        }
+        return new Comparison(diffs, missing);
+    }
+
+    // both thresholds must be exceeded
+    static boolean isRegression(double ratio, double deltaMs, double maxRatio, double maxDeltaMs) {
+        return ratio > maxRatio && deltaMs > maxDeltaMs;
+    }
+
+    private static void writeReport(Path file, String baselinePath, double maxRatio, double maxDeltaMs, Comparison comparison) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("baseline", baselinePath);
+        root.put("maxRatio", maxRatio);
+        root.put("maxDeltaMs", maxDeltaMs);
+        root.put("regressions", comparison.diffs().stream().filter(Diff::regressed).count());
+        root.set("diffs", MAPPER.valueToTree(comparison.diffs()));
+        root.set("missing", MAPPER.valueToTree(comparison.missing()));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            MAPPER.writeValue(file.toFile(), root);
+            LOGGER.info("Baseline diff report written in '{}'", file.toAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("Cannot write baseline diff report '{}': {}", file, e.getMessage());
+        }
+    }
+
+    private static String key(LatencyStats.Category category) {
+        return category.name().toLowerCase(Locale.ROOT);
+    }
+}
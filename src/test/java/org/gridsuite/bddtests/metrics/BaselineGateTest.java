@@ -0,0 +1,106 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// default thresholds: ratio 1.5 and delta 200 ms
+class BaselineGateTest {
+
+    private static final double MAX_RATIO = 1.5;
+    private static final double MAX_DELTA_MS = 200;
+
+    private static final String BASELINE = """
+            {
+              "step": {
+                "fast step": {"count": 10, "p95Ms": 20.0},
+                "slow step": {"count": 10, "p95Ms": 1000.0},
+                "removed step": {"count": 10, "p95Ms": 50.0}
+              },
+              "endpoint": {
+                "GET /v1/studies/{}": {"count": 30, "p95Ms": 0.0}
+              }
+            }
+            """;
+
+    private static LatencyStats.Summary summary(long count, double p95Ms) {
+        return new LatencyStats.Summary(count, p95Ms, p95Ms, p95Ms, p95Ms, p95Ms, p95Ms);
+    }
+
+    private static BaselineGate.Comparison compare(Map<String, LatencyStats.Summary> steps, Map<String, LatencyStats.Summary> endpoints) throws Exception {
+        JsonNode baseline = new ObjectMapper().readTree(BASELINE);
+        return BaselineGate.compare(baseline, category -> category == LatencyStats.Category.STEP ? steps : endpoints, MAX_RATIO, MAX_DELTA_MS);
+    }
+
+    private static BaselineGate.Diff diff(BaselineGate.Comparison comparison, String name) {
+        return comparison.diffs().stream().filter(d -> d.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void regressionNeedsBothRatioAndDelta() {
+        // ratio only: noise on a fast call
+        assertFalse(BaselineGate.isRegression(3, 40, MAX_RATIO, MAX_DELTA_MS));
+        // delta only: small relative change on a slow call
+        assertFalse(BaselineGate.isRegression(1.3, 300, MAX_RATIO, MAX_DELTA_MS));
+        assertTrue(BaselineGate.isRegression(1.6, 300, MAX_RATIO, MAX_DELTA_MS));
+        // thresholds are exclusive
+        assertFalse(BaselineGate.isRegression(1.5, 300, MAX_RATIO, MAX_DELTA_MS));
+        assertFalse(BaselineGate.isRegression(1.6, 200, MAX_RATIO, MAX_DELTA_MS));
+    }
+
+    @Test
+    void comparesP95OfTheEntriesInBothRuns() throws Exception {
+        BaselineGate.Comparison comparison = compare(
+                Map.of("fast step", summary(12, 60), "slow step", summary(8, 1600), "new step", summary(5, 5000)),
+                Map.of("GET /v1/studies/{}", summary(25, 500)));
+
+        // "removed step" is not run, "new step" is not in the baseline
+        assertEquals(3, comparison.diffs().size());
+        BaselineGate.Diff fast = diff(comparison, "fast step");
+        assertEquals(3, fast.ratio(), 1e-9);
+        assertEquals(40, fast.deltaMs(), 1e-9);
+        assertFalse(fast.regressed());
+
+        BaselineGate.Diff slow = diff(comparison, "slow step");
+        assertEquals("step", slow.category());
+        assertEquals(10, slow.baselineCount());
+        assertEquals(8, slow.currentCount());
+        assertEquals(1.6, slow.ratio(), 1e-9);
+        assertEquals(600, slow.deltaMs(), 1e-9);
+        assertTrue(slow.regressed());
+
+        // no baseline p95: the delta alone decides
+        BaselineGate.Diff endpoint = diff(comparison, "GET /v1/studies/{}");
+        assertEquals("endpoint", endpoint.category());
+        assertEquals(Double.POSITIVE_INFINITY, endpoint.ratio());
+        assertTrue(endpoint.regressed());
+    }
+
+    @Test
+    void zeroBaselineWithinDeltaIsNotARegression() throws Exception {
+        BaselineGate.Comparison comparison = compare(Map.of(), Map.of("GET /v1/studies/{}", summary(25, 150)));
+
+        assertFalse(diff(comparison, "GET /v1/studies/{}").regressed());
+    }
+
+    @Test
+    void reportsBaselineEntriesMissingFromTheRun() throws Exception {
+        BaselineGate.Comparison comparison = compare(Map.of("fast step", summary(10, 20)), Map.of());
+
+        assertEquals(1, comparison.diffs().size());
+        assertEquals(List.of("step 'slow step'", "step 'removed step'", "endpoint 'GET /v1/studies/{}'"), comparison.missing());
+    }
+}
@@ -0,0 +1,65 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import org.gridsuite.bddtests.results.ResultRecorder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.regex.Pattern;
+
+// Times each HTTP call of a web client, until its response body is fully read (or abandoned), in the shared
+// LatencyStats: per endpoint ("METHOD service /path/{uuid}/..."), and per step and endpoint.
+// Also recorded with their HTTP status in the run results history (see ResultRecorder).
+public final class HttpTimingFilter implements ExchangeFilterFunction {
+
+    private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final String STEP_SEPARATOR = " | ";
+    private static final String ERROR_STATUS = "ERROR";
+
+    private final String serviceName;
+
+    public HttpTimingFilter(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public static String getEndpoint(String method, String serviceName, String path) {
+        return method + " " + serviceName + " " + UUID_PATTERN.matcher(path).replaceAll("{uuid}");
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String endpoint = getEndpoint(request.method().name(), serviceName, request.url().getPath());
+        // called on subscription, so on the step thread for the blocking requests
+        String step = StepLatencyPlugin.getCurrentStep();
+        String runId = ResultRecorder.getCurrentRunId();
+        return Mono.defer(() -> {
+            StartupTiming.onRequest();
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .map(response -> {
+                        String status = String.valueOf(response.statusCode().value());
+                        return response.mutate()
+                                .body(body -> body.doFinally(signal -> record(endpoint, step, runId, start, status)))
+                                .build();
+                    })
+                    .doOnError(e -> record(endpoint, step, runId, start, ERROR_STATUS));
+        });
+    }
+
+    private static void record(String endpoint, String step, String runId, long start, String status) {
+        long duration = System.nanoTime() - start;
+        LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).record(endpoint, duration);
+        if (step != null) {
+            LatencyStats.getInstance(LatencyStats.Category.STEP_ENDPOINT).record(step + STEP_SEPARATOR + endpoint, duration);
+        }
+        ResultRecorder.recordEndpoint(endpoint, runId, duration, status);
+    }
+}
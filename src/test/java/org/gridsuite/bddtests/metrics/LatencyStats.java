@@ -0,0 +1,85 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Latency distributions (HdrHistogram, microsecond resolution) per name, in a few categories.
+// Shared by all the cucumber runtimes of the JVM (ex: concurrent virtual users of a load test).
+public final class LatencyStats {
+
+    public enum Category {
+        // whole runs of the load tests (response and service times)
+        RUN,
+        SCENARIO,
+        STEP,
+        // HTTP calls, per method, micro-service and path template
+        ENDPOINT,
+        // HTTP calls, per step and endpoint
+        STEP_ENDPOINT,
+        // phases of the asynchronous backend pipelines (case and study creation), see PhaseTimer
+        PHASE,
+    }
+
+    public record Summary(long count, double meanMs, double p50Ms, double p90Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    // no lock on the recording path: the map is filled once, then only read
+    public static LatencyStats getInstance(Category category) {
+        return INSTANCES.get(category);
+    }
+
+    private static final Map<Category, LatencyStats> INSTANCES = new EnumMap<>(Category.class);
+
+    static {
+        for (Category category : Category.values()) {
+            INSTANCES.put(category, new LatencyStats());
+        }
+    }
+
+    // auto-resizing histograms, 3 significant digits
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private LatencyStats() {
+    }
+
+    public void record(String name, long durationNanos) {
+        getHistogram(name).recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+    }
+
+    public Histogram getHistogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+    }
+
+    public Map<String, Summary> getSummaries() {
+        Map<String, Summary> summaries = new TreeMap<>();
+        histograms.forEach((name, h) -> summaries.put(name, summarize(h)));
+        return summaries;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    public static Summary summarize(Histogram h) {
+        return new Summary(h.getTotalCount(), toMs(h.getMean()), toMs(h.getValueAtPercentile(50)), toMs(h.getValueAtPercentile(90)),
+                toMs(h.getValueAtPercentile(95)), toMs(h.getValueAtPercentile(99)), toMs(h.getMaxValue()));
+    }
+
+    private static double toMs(double micros) {
+        return Math.round(micros) / 1000.;
+    }
+}
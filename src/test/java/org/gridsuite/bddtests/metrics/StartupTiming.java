@@ -0,0 +1,51 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+// JVM start cost of the harness: time from the JVM start to the first HTTP request sent (see HttpTimingFilter).
+// Recorded once per JVM, in the RUN latency stats as "time to first request".
+public final class StartupTiming {
+
+    public static final String TIME_TO_FIRST_REQUEST = "time to first request";
+
+    private static volatile long timeToFirstRequestMs = -1;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTiming.class);
+
+    private StartupTiming() {
+        throw new UnsupportedOperationException("StartupTiming is a utility class and cannot be instantiated");
+    }
+
+    // milliseconds since the JVM start
+    public static long getUptimeMs() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    static void onRequest() {
+        if (timeToFirstRequestMs < 0) {
+            markFirstRequest();
+        }
+    }
+
+    private static synchronized void markFirstRequest() {
+        if (timeToFirstRequestMs < 0) {
+            timeToFirstRequestMs = getUptimeMs();
+            LatencyStats.getInstance(LatencyStats.Category.RUN).record(TIME_TO_FIRST_REQUEST, timeToFirstRequestMs * 1_000_000);
+            LOGGER.info("Time to first request: {} ms after the JVM start", timeToFirstRequestMs);
+        }
+    }
+
+    // -1 if no request sent yet
+    public static long getTimeToFirstRequestMs() {
+        return timeToFirstRequestMs;
+    }
+}
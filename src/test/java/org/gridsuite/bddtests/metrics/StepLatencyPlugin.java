@@ -0,0 +1,147 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+
+// Cucumber plugin timing each Gherkin step (by step text) and each scenario, while the HttpTimingFilter of the
+// web clients times the HTTP calls (per endpoint, and per step and endpoint). At the end of the run, the p50/p90/p95/p99/max
+// are written as JSON and HTML in the given directory.
+// Usage: cucumber.plugin=org.gridsuite.bddtests.metrics.StepLatencyPlugin:target/step-latency
+public class StepLatencyPlugin implements ConcurrentEventListener {
+
+    public static final String JSON_REPORT = "step-latency.json";
+    public static final String HTML_REPORT = "step-latency.html";
+    private static final String DEFAULT_OUTPUT_DIR = "target/step-latency";
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // steps are run synchronously on the scenario thread: the HTTP calls done on this thread belong to the current step
+    private static final ThreadLocal<String> CURRENT_STEP = new ThreadLocal<>();
+    // load tests run many cucumber runtimes, and write a single report at the end
+    private static volatile boolean runReportsEnabled = true;
+
+    private final Path outputDir;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StepLatencyPlugin.class);
+
+    public StepLatencyPlugin() {
+        this(DEFAULT_OUTPUT_DIR);
+    }
+
+    public StepLatencyPlugin(String outputDir) {
+        this.outputDir = Path.of(outputDir);
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestStepStarted.class, this::onTestStepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onTestRunFinished);
+    }
+
+    public static String getCurrentStep() {
+        return CURRENT_STEP.get();
+    }
+
+    public static void disableRunReports() {
+        runReportsEnabled = false;
+    }
+
+    public static boolean isRunReportsEnabled() {
+        return runReportsEnabled;
+    }
+
+    private void onTestStepStarted(TestStepStarted event) {
+        // hooks are not timed
+        if (event.getTestStep() instanceof PickleStepTestStep step) {
+            CURRENT_STEP.set(step.getStep().getText());
+        }
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        if (event.getTestStep() instanceof PickleStepTestStep step) {
+            CURRENT_STEP.remove();
+            LatencyStats.getInstance(LatencyStats.Category.STEP).record(step.getStep().getText(), event.getResult().getDuration().toNanos());
+        }
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        LatencyStats.getInstance(LatencyStats.Category.SCENARIO).record(event.getTestCase().getName(), event.getResult().getDuration().toNanos());
+    }
+
+    private void onTestRunFinished(TestRunFinished event) {
+        if (runReportsEnabled) {
+            writeReports(outputDir);
+        }
+    }
+
+    // --------------------------------------------------------
+    public static synchronized void writeReports(Path outputDir) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("generatedAt", Instant.now().toString());
+        for (LatencyStats.Category category : LatencyStats.Category.values()) {
+            root.set(category.name().toLowerCase(Locale.ROOT), MAPPER.valueToTree(LatencyStats.getInstance(category).getSummaries()));
+        }
+        try {
+            Files.createDirectories(outputDir);
+            MAPPER.writeValue(outputDir.resolve(JSON_REPORT).toFile(), root);
+            Files.writeString(outputDir.resolve(HTML_REPORT), toHtml(), StandardCharsets.UTF_8);
+            LOGGER.info("Step latency reports written in '{}'", outputDir.toAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("Cannot write step latency reports in '{}': {}", outputDir, e.getMessage());
+        }
+    }
+
+    private static String toHtml() {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Step latencies</title>\n")
+                .append("<style>body{font-family:sans-serif} table{border-collapse:collapse;margin-bottom:2em}")
+                .append(" th,td{border:1px solid #ccc;padding:4px 8px} td.num{text-align:right}</style></head><body>\n")
+                .append("<h1>Step latencies</h1><p>").append(Instant.now()).append(" (durations in ms)</p>\n");
+        appendTable(html, "Steps", LatencyStats.getInstance(LatencyStats.Category.STEP).getSummaries());
+        appendTable(html, "HTTP endpoints", LatencyStats.getInstance(LatencyStats.Category.ENDPOINT).getSummaries());
+        appendTable(html, "HTTP endpoints per step", LatencyStats.getInstance(LatencyStats.Category.STEP_ENDPOINT).getSummaries());
+        appendTable(html, "Asynchronous pipeline phases", LatencyStats.getInstance(LatencyStats.Category.PHASE).getSummaries());
+        appendTable(html, "Scenarios", LatencyStats.getInstance(LatencyStats.Category.SCENARIO).getSummaries());
+        return html.append("</body></html>\n").toString();
+    }
+
+    private static void appendTable(StringBuilder html, String title, Map<String, LatencyStats.Summary> summaries) {
+        html.append("<h2>").append(escape(title)).append("</h2>\n<table><tr><th>Name</th><th>Count</th><th>p50</th><th>p90</th><th>p95</th><th>p99</th><th>Max</th></tr>\n");
+        summaries.forEach((name, s) -> html.append("<tr><td>").append(escape(name)).append("</td>")
+                .append("<td class=\"num\">").append(s.count()).append("</td>")
+                .append("<td class=\"num\">").append(s.p50Ms()).append("</td>")
+                .append("<td class=\"num\">").append(s.p90Ms()).append("</td>")
+                .append("<td class=\"num\">").append(s.p95Ms()).append("</td>")
+                .append("<td class=\"num\">").append(s.p99Ms()).append("</td>")
+                .append("<td class=\"num\">").append(s.maxMs()).append("</td></tr>\n"));
+        html.append("</table>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -6,25 +6,26 @@
  */
 package org.gridsuite.bddtests.networkconversion;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.common.JsonStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
 public final class NetworkConversionRequests {
 
-    public static synchronized NetworkConversionRequests getInstance() {
-        if (instance == null) {
-            instance = new NetworkConversionRequests();
-        }
-        return instance;
+    public static NetworkConversionRequests getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final NetworkConversionRequests INSTANCE = new NetworkConversionRequests();
     }
 
-    private static NetworkConversionRequests instance = null;
     private final WebClient webClient;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NetworkConversionRequests.class);
@@ -33,27 +34,23 @@ public final class NetworkConversionRequests {
         webClient = EnvProperties.getInstance().getWebClient(EnvProperties.MicroService.NETWORK_CONVERSION_SERVER);
     }
 
-    public JsonNode getImportParameters(String caseId) {
+    public Mono<JsonNode> getImportParametersAsync(String caseId) {
         String path = UriComponentsBuilder.fromPath(
                         "cases/{caseId}/import-parameters")
                 .buildAndExpand(caseId)
                 .toUriString();
         LOGGER.info("getImportParameters uri: '{}'", path);
-        String jsonResponse = webClient.get()
-                .uri(path)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
-        LOGGER.info("getImportParameters resp: '{}'", jsonResponse);
-        // parse Json data
-        if (jsonResponse != null) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                return mapper.readTree(jsonResponse);
-            } catch (JsonProcessingException je) {
-                return null;
-            }
-        }
-        return null;
+        // streaming projection: keep only the format and the parameters names/possible values
+        return JsonStreams.decode(
+                        webClient.get()
+                                .uri(path)
+                                .retrieve()
+                                .bodyToFlux(DataBuffer.class),
+                        JsonStreams.project("formatName", "parameters", "name", "possibleValues"))
+                .doOnNext(importParameters -> LOGGER.info("getImportParameters resp: '{}'", importParameters));
+    }
+
+    public JsonNode getImportParameters(String caseId) {
+        return getImportParametersAsync(caseId).block();
     }
 }
@@ -0,0 +1,122 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// PostgreSQL store (driver already in the runtime dependencies): a single table, created if needed,
+// written with batched inserts on one connection (opened again after a failure).
+final class JdbcResultSink implements ResultSink {
+
+    private static final String TABLE = "bddtests_results";
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+            + "ts TIMESTAMPTZ NOT NULL, platform TEXT, run_id TEXT NOT NULL, kind TEXT NOT NULL, name TEXT NOT NULL, "
+            + "duration_ms DOUBLE PRECISION NOT NULL, status TEXT)";
+    private static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS " + TABLE + "_kind_name_ts ON " + TABLE + " (kind, name, ts)";
+    private static final String INSERT = "INSERT INTO " + TABLE + " (ts, platform, run_id, kind, name, duration_ms, status) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private Connection connection = null;
+
+    JdbcResultSink(String url, String user, String password) throws IOException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        try (Statement statement = getConnection().createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(CREATE_INDEX);
+        } catch (SQLException e) {
+            throw new IOException("Cannot create the results table in " + url, e);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            connection = DriverManager.getConnection(url, user, password);
+        }
+        return connection;
+    }
+
+    @Override
+    public synchronized void write(List<ResultRecord> records) throws IOException {
+        try (PreparedStatement insert = getConnection().prepareStatement(INSERT)) {
+            for (ResultRecord r : records) {
+                insert.setTimestamp(1, Timestamp.from(r.timestamp()));
+                insert.setString(2, r.platform());
+                insert.setString(3, r.runId());
+                insert.setString(4, r.kind().name());
+                insert.setString(5, r.name());
+                insert.setDouble(6, r.durationMs());
+                insert.setString(7, r.status());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IOException("Cannot write " + records.size() + " results in " + url, e);
+        }
+    }
+
+    @Override
+    public synchronized List<TrendPoint> queryTrends(Kind kind, String platform, Instant since, Duration bucket) throws IOException {
+        String sql = "SELECT to_timestamp(floor(extract(epoch FROM ts) / ?) * ?) AS bucket, name, count(*) AS n, "
+                // nearest-rank, as computed by the JSON lines sink
+                + "percentile_disc(0.95) WITHIN GROUP (ORDER BY duration_ms) AS p95, "
+                + "avg(CASE WHEN status = 'PASSED' OR status LIKE '2__' THEN 1.0 ELSE 0.0 END) AS availability "
+                + "FROM " + TABLE + " WHERE kind = ? AND ts >= ?" + (platform != null ? " AND platform = ?" : "")
+                + " GROUP BY bucket, name ORDER BY name, bucket";
+        List<TrendPoint> trends = new ArrayList<>();
+        try (PreparedStatement query = getConnection().prepareStatement(sql)) {
+            query.setLong(1, bucket.toSeconds());
+            query.setLong(2, bucket.toSeconds());
+            query.setString(3, kind.name());
+            query.setTimestamp(4, Timestamp.from(since));
+            if (platform != null) {
+                query.setString(5, platform);
+            }
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    trends.add(new TrendPoint(rs.getTimestamp("bucket").toInstant(), rs.getString("name"), rs.getLong("n"),
+                            rs.getDouble("p95"), rs.getDouble("availability")));
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new IOException("Cannot query the result trends in " + url, e);
+        }
+        return trends;
+    }
+
+    @Override
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private void closeQuietly() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // already broken
+            }
+            connection = null;
+        }
+    }
+}
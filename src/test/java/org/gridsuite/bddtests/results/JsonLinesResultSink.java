@@ -0,0 +1,109 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// File-backed store, for offline use: one JSON object per line, appended. Trends are computed by reading the whole file.
+final class JsonLinesResultSink implements ResultSink {
+
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    JsonLinesResultSink(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+    }
+
+    @Override
+    public synchronized void write(List<ResultRecord> records) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ResultRecord r : records) {
+                ObjectNode line = mapper.createObjectNode();
+                line.put("ts", r.timestamp().toString());
+                line.put("platform", r.platform());
+                line.put("runId", r.runId());
+                line.put("kind", r.kind().name());
+                line.put("name", r.name());
+                line.put("durationMs", r.durationMs());
+                line.put("status", r.status());
+                writer.write(mapper.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+    }
+
+    @Override
+    public synchronized List<TrendPoint> queryTrends(Kind kind, String platform, Instant since, Duration bucket) throws IOException {
+        // (name, bucket start) -> durations and successes
+        Map<String, Map<Instant, List<Double>>> durations = new TreeMap<>();
+        Map<String, Map<Instant, long[]>> successes = new HashMap<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode r = mapper.readTree(line);
+                    Instant ts = Instant.parse(r.path("ts").asText());
+                    if (!kind.name().equals(r.path("kind").asText()) || ts.isBefore(since)
+                            || (platform != null && !platform.equals(r.path("platform").asText(null)))) {
+                        continue;
+                    }
+                    String name = r.path("name").asText();
+                    Instant bucketStart = Instant.ofEpochMilli(ts.toEpochMilli() - Math.floorMod(ts.toEpochMilli(), bucket.toMillis()));
+                    durations.computeIfAbsent(name, n -> new TreeMap<>()).computeIfAbsent(bucketStart, b -> new ArrayList<>())
+                            .add(r.path("durationMs").asDouble());
+                    long[] counts = successes.computeIfAbsent(name, n -> new HashMap<>()).computeIfAbsent(bucketStart, b -> new long[2]);
+                    counts[0]++;
+                    if (ResultSink.isSuccess(r.path("status").asText(null))) {
+                        counts[1]++;
+                    }
+                }
+            }
+        }
+        List<TrendPoint> trends = new ArrayList<>();
+        durations.forEach((name, buckets) -> buckets.forEach((bucketStart, values) -> {
+            long[] counts = successes.get(name).get(bucketStart);
+            trends.add(new TrendPoint(bucketStart, name, values.size(), percentile(values, 95), (double) counts[1] / counts[0]));
+        }));
+        return trends;
+    }
+
+    // nearest-rank percentile, as percentile_disc in the SQL sink (integer arithmetic: no rounding error on the rank)
+    private static double percentile(List<Double> values, int percentile) {
+        List<Double> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        int rank = (percentile * sorted.size() + 99) / 100;
+        return sorted.get(Math.max(0, rank - 1));
+    }
+
+    @Override
+    public void close() {
+        // nothing kept open between the batches
+    }
+}
@@ -0,0 +1,144 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.gridsuite.bddtests.common.EnvProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.UUID;
+
+// Cucumber plugin keeping the history of the runs in a ResultSink: each scenario, step and HTTP call (from the
+// HttpTimingFilter) of a run, with its duration, status, platform and run id.
+// Settings (system properties):
+//   results.sink=none|jdbc|file  (default none)
+//   results.jdbc_url=jdbc:postgresql://host:5432/db, results.jdbc_user, results.jdbc_password
+//   results.file=target/results/results.jsonl
+//   results.batch_size=500, results.flush_ms=1000
+// Usage: cucumber.plugin=org.gridsuite.bddtests.results.ResultRecorder
+public class ResultRecorder implements ConcurrentEventListener {
+
+    public enum SinkType {
+        NONE,
+        JDBC,
+        FILE,
+    }
+
+    private static final String DEFAULT_FILE = "target/results/results.jsonl";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long DEFAULT_FLUSH_MS = 1000;
+
+    // the run of the scenario executed by the current thread: parallel scenarios and concurrent cucumber runtimes
+    // (load tests, supervision daemon) each record under their own run id
+    private static final ThreadLocal<String> CURRENT_RUN = new ThreadLocal<>();
+
+    private static final class WriterHolder {
+        // null when disabled
+        private static final ResultWriter WRITER = createWriter();
+    }
+
+    private volatile String runId = null;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultRecorder.class);
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        if (getSinkType() == SinkType.NONE) {
+            return;
+        }
+        publisher.registerHandlerFor(TestRunStarted.class, this::onTestRunStarted);
+        publisher.registerHandlerFor(TestCaseStarted.class, event -> CURRENT_RUN.set(runId));
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onTestRunFinished);
+    }
+
+    public static String getCurrentRunId() {
+        return CURRENT_RUN.get();
+    }
+
+    // status: HTTP status code, or ERROR if no response was received
+    public static void recordEndpoint(String endpoint, String runId, long durationNanos, String status) {
+        if (runId != null) {
+            add(ResultSink.Kind.ENDPOINT, runId, endpoint, durationNanos, status);
+        }
+    }
+
+    private void onTestRunStarted(TestRunStarted event) {
+        runId = UUID.randomUUID().toString();
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        if (event.getTestStep() instanceof PickleStepTestStep step) {
+            add(ResultSink.Kind.STEP, runId, step.getStep().getText(), event.getResult().getDuration().toNanos(),
+                    event.getResult().getStatus().name());
+        }
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        add(ResultSink.Kind.SCENARIO, runId, event.getTestCase().getName(), event.getResult().getDuration().toNanos(),
+                event.getResult().getStatus().name());
+        CURRENT_RUN.remove();
+    }
+
+    private void onTestRunFinished(TestRunFinished event) {
+        ResultWriter writer = WriterHolder.WRITER;
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private static void add(ResultSink.Kind kind, String runId, String name, long durationNanos, String status) {
+        ResultWriter writer = WriterHolder.WRITER;
+        if (writer != null) {
+            writer.add(new ResultSink.ResultRecord(Instant.now(), EnvProperties.getInstance().getPlatformName(), runId,
+                    kind, name, durationNanos / 1e6, status));
+        }
+    }
+
+    // --------------------------------------------------------
+    static SinkType getSinkType() {
+        return SinkType.valueOf(System.getProperty("results.sink", "none").trim().toUpperCase(Locale.ROOT));
+    }
+
+    // also used by ResultTrends, to read the same store
+    static ResultSink createSink() throws IOException {
+        return switch (getSinkType()) {
+            case NONE -> null;
+            case JDBC -> new JdbcResultSink(System.getProperty("results.jdbc_url"),
+                    System.getProperty("results.jdbc_user"), System.getProperty("results.jdbc_password"));
+            case FILE -> new JsonLinesResultSink(Path.of(System.getProperty("results.file", DEFAULT_FILE)));
+        };
+    }
+
+    private static ResultWriter createWriter() {
+        try {
+            ResultSink sink = createSink();
+            if (sink == null) {
+                return null;
+            }
+            LOGGER.info("Run results recorded in a {} sink", getSinkType().name().toLowerCase(Locale.ROOT));
+            return new ResultWriter(sink, Integer.getInteger("results.batch_size", DEFAULT_BATCH_SIZE),
+                    Long.getLong("results.flush_ms", DEFAULT_FLUSH_MS));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
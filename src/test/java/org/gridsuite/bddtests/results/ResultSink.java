@@ -0,0 +1,42 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Time-series store of the run results: one record per scenario, step and HTTP call, with its duration and status.
+public interface ResultSink extends AutoCloseable {
+
+    enum Kind {
+        SCENARIO,
+        STEP,
+        ENDPOINT,
+    }
+
+    // status: cucumber status (PASSED, FAILED...) for scenarios and steps, HTTP status code (or ERROR) for endpoints
+    record ResultRecord(Instant timestamp, String platform, String runId, Kind kind, String name, double durationMs, String status) {
+    }
+
+    // per time bucket and name: number of records, p95 duration, and availability (ratio of passed/2xx records)
+    record TrendPoint(Instant bucketStart, String name, long count, double p95Ms, double availability) {
+    }
+
+    void write(List<ResultRecord> records) throws IOException;
+
+    // platform: null for all platforms
+    List<TrendPoint> queryTrends(Kind kind, String platform, Instant since, Duration bucket) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    static boolean isSuccess(String status) {
+        return "PASSED".equals(status) || (status != null && status.length() == 3 && status.charAt(0) == '2');
+    }
+}
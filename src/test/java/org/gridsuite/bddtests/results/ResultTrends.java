@@ -0,0 +1,54 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+
+// Prints the trends of the recorded results (same results.* settings as the ResultRecorder): per name and time bucket,
+// the number of records, the p95 duration and the availability.
+// mvn test-compile exec:java -Dexec.mainClass=org.gridsuite.bddtests.results.ResultTrends -Dexec.classpathScope=test
+//     -Dresults.sink=file [-Dtrend.kind=STEP] [-Dtrend.days=7] [-Dtrend.bucket=PT1H] [-Dtrend.platform=demo]
+public final class ResultTrends {
+
+    private static final long DEFAULT_DAYS = 7;
+    private static final String DEFAULT_BUCKET = "PT1H";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultTrends.class);
+
+    private ResultTrends() {
+        throw new UnsupportedOperationException("ResultTrends is a main class and cannot be instantiated");
+    }
+
+    public static void main(String[] args) throws IOException {
+        ResultSink.Kind kind = ResultSink.Kind.valueOf(System.getProperty("trend.kind", "STEP").toUpperCase(Locale.ROOT));
+        Instant since = Instant.now().minus(Duration.ofDays(Long.getLong("trend.days", DEFAULT_DAYS)));
+        Duration bucket = Duration.parse(System.getProperty("trend.bucket", DEFAULT_BUCKET));
+        try (ResultSink sink = ResultRecorder.createSink()) {
+            if (sink == null) {
+                LOGGER.error("No result store: set -Dresults.sink=jdbc or file");
+                return;
+            }
+            List<ResultSink.TrendPoint> trends = sink.queryTrends(kind, System.getProperty("trend.platform"), since, bucket);
+            String previousName = null;
+            for (ResultSink.TrendPoint point : trends) {
+                if (!point.name().equals(previousName)) {
+                    LOGGER.info("{}", point.name());
+                    previousName = point.name();
+                }
+                LOGGER.info(String.format(Locale.ROOT, "  %s  count %6d  p95 %10.1f ms  availability %6.2f %%",
+                        point.bucketStart(), point.count(), point.p95Ms(), point.availability() * 100));
+            }
+        }
+    }
+}
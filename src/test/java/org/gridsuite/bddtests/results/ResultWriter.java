@@ -0,0 +1,98 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.results;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Writes the results to the sink in batches, from a single background thread: the step and reactor threads only
+// enqueue (bounded queue, records dropped and counted when the sink cannot keep up).
+final class ResultWriter {
+
+    private static final int QUEUE_CAPACITY = 100_000;
+
+    private final ResultSink sink;
+    private final int batchSize;
+    private final long flushMs;
+    private final BlockingQueue<ResultSink.ResultRecord> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final Thread thread;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultWriter.class);
+
+    ResultWriter(ResultSink sink, int batchSize, long flushMs) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        thread = new Thread(this::run, "result-writer");
+        thread.setDaemon(true);
+        thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "result-writer-shutdown"));
+    }
+
+    void add(ResultSink.ResultRecord resultRecord) {
+        if (!queue.offer(resultRecord) && droppedRecords.incrementAndGet() % QUEUE_CAPACITY == 1) {
+            LOGGER.warn("Result queue full: {} records dropped", droppedRecords.get());
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                ResultSink.ResultRecord first = queue.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    drain(first);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // writes all the queued records (called at the end of each cucumber run)
+    void flush() {
+        drain(null);
+    }
+
+    private synchronized void drain(ResultSink.ResultRecord first) {
+        List<ResultSink.ResultRecord> batch = new ArrayList<>(batchSize);
+        if (first != null) {
+            batch.add(first);
+        }
+        do {
+            queue.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                sink.write(batch);
+            } catch (IOException e) {
+                // results are not worth failing the scenarios: the batch is lost
+                LOGGER.error("Cannot write {} results: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        } while (!queue.isEmpty());
+    }
+
+    private void close() {
+        thread.interrupt();
+        flush();
+        try {
+            sink.close();
+        } catch (IOException e) {
+            LOGGER.error("Cannot close the result sink: {}", e.getMessage());
+        }
+    }
+}
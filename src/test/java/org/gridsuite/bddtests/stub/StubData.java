@@ -0,0 +1,234 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.stub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory model of the stub server: directory elements, cases and studies (tree, root network,
+// loadflow parameters and status), rendered as the JSON documents returned by the GridSuite servers.
+final class StubData {
+
+    record Element(String uuid, String name, String type, String owner, String description, String parentUuid) {
+    }
+
+    record TreeNode(String id, String name, String type, List<TreeNode> children) {
+    }
+
+    static final class Study {
+        private final TreeNode root;
+        private final Map<String, TreeNode> nodesById = new ConcurrentHashMap<>();
+        private final String rootNetworkUuid = UUID.randomUUID().toString();
+        // (rootNetworkUuid/nodeUuid) -> loadflow status
+        private final Map<String, String> loadFlowStatus = new ConcurrentHashMap<>();
+        private volatile String loadFlowParameters = "{\"provider\":\"OpenLoadFlow\"}";
+
+        Study(int nodeCount) {
+            root = new TreeNode(UUID.randomUUID().toString(), "Root", "ROOT", new ArrayList<>());
+            nodesById.put(root.id(), root);
+            // N1 under the root, then nodes added under random existing ones (as successive node creations do)
+            List<TreeNode> nodes = new ArrayList<>(List.of(root));
+            Random random = new Random(nodeCount);
+            for (int i = 1; i < Math.max(2, nodeCount); i++) {
+                TreeNode node = new TreeNode(UUID.randomUUID().toString(), "N" + i, "NETWORK_MODIFICATION", new ArrayList<>());
+                TreeNode parent = i == 1 ? root : nodes.get(1 + random.nextInt(nodes.size() - 1));
+                parent.children().add(node);
+                nodesById.put(node.id(), node);
+                nodes.add(node);
+            }
+        }
+
+        String getRootNetworkUuid() {
+            return rootNetworkUuid;
+        }
+
+        boolean hasNode(String nodeUuid) {
+            return nodesById.containsKey(nodeUuid);
+        }
+
+        String getLoadFlowStatus(String rootNetworkUuid, String nodeUuid) {
+            return loadFlowStatus.get(rootNetworkUuid + "/" + nodeUuid);
+        }
+
+        void setLoadFlowStatus(String rootNetworkUuid, String nodeUuid, String status) {
+            loadFlowStatus.put(rootNetworkUuid + "/" + nodeUuid, status);
+        }
+
+        // a network modification invalidates the results of the node (and of its subtree, simplified as all nodes)
+        void clearLoadFlowStatus() {
+            loadFlowStatus.clear();
+        }
+
+        String getLoadFlowParameters() {
+            return loadFlowParameters;
+        }
+
+        void setLoadFlowParameters(String loadFlowParameters) {
+            this.loadFlowParameters = loadFlowParameters;
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Element> elements = new ConcurrentHashMap<>();
+    private final Set<String> cases = ConcurrentHashMap.newKeySet();
+    private final Map<String, Study> studies = new ConcurrentHashMap<>();
+    // padding added to the listed elements and tree nodes, to simulate heavy responses
+    private final String padding;
+
+    StubData(int paddingBytes) {
+        padding = "x".repeat(Math.max(0, paddingBytes));
+    }
+
+    // --------------------------------------------------------
+    Element addElement(String name, String type, String owner, String description, String parentUuid) {
+        Element element = new Element(UUID.randomUUID().toString(), name, type, owner, description, parentUuid);
+        elements.put(element.uuid(), element);
+        return element;
+    }
+
+    Element getElement(String uuid) {
+        return elements.get(uuid);
+    }
+
+    // recursive removal, returns the removed element (null if unknown)
+    Element removeElement(String uuid) {
+        Element removed = elements.remove(uuid);
+        if (removed != null) {
+            cases.remove(uuid);
+            studies.remove(uuid);
+            elements.values().stream()
+                    .filter(e -> uuid.equals(e.parentUuid()))
+                    .map(Element::uuid)
+                    .toList()
+                    .forEach(this::removeElement);
+        }
+        return removed;
+    }
+
+    List<Element> getChildren(String parentUuid) {
+        return elements.values().stream()
+                .filter(e -> parentUuid == null ? e.parentUuid() == null : parentUuid.equals(e.parentUuid()))
+                .toList();
+    }
+
+    void addCase(String caseUuid) {
+        cases.add(caseUuid);
+    }
+
+    boolean caseExists(String caseUuid) {
+        return cases.contains(caseUuid);
+    }
+
+    // the study uuid is the one of its directory element
+    Study addStudy(String studyUuid, int nodeCount) {
+        Study study = new Study(nodeCount);
+        studies.put(studyUuid, study);
+        return study;
+    }
+
+    Study getStudy(String studyUuid) {
+        return studies.get(studyUuid);
+    }
+
+    // --------------------------------------------------------
+    String toJson(Element element) {
+        return elementNode(element).toString();
+    }
+
+    String toJson(List<Element> elementList) {
+        ArrayNode array = mapper.createArrayNode();
+        elementList.forEach(e -> array.add(elementNode(e)));
+        return array.toString();
+    }
+
+    private ObjectNode elementNode(Element element) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("elementUuid", element.uuid());
+        node.put("elementName", element.name());
+        node.put("type", element.type());
+        node.put("owner", element.owner());
+        node.put("description", element.description() != null ? element.description() + padding : padding);
+        node.put("subdirectoriesCount", (int) elements.values().stream().filter(e -> element.uuid().equals(e.parentUuid())).count());
+        return node;
+    }
+
+    String treeToJson(Study study) {
+        return treeNode(study.root, true).toString();
+    }
+
+    String nodeToJson(Study study, String nodeUuid) {
+        TreeNode node = study.nodesById.get(nodeUuid);
+        return node != null ? treeNode(node, false).toString() : null;
+    }
+
+    private ObjectNode treeNode(TreeNode treeNode, boolean withChildren) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("id", treeNode.id());
+        node.put("name", treeNode.name());
+        node.put("type", treeNode.type());
+        node.put("description", padding);
+        node.put("readOnly", "ROOT".equals(treeNode.type()));
+        ObjectNode buildStatus = node.putObject("nodeBuildStatus");
+        buildStatus.put("localBuildStatus", "BUILT");
+        buildStatus.put("globalBuildStatus", "BUILT");
+        if (withChildren) {
+            ArrayNode children = node.putArray("children");
+            treeNode.children().forEach(child -> children.add(treeNode(child, true)));
+        }
+        return node;
+    }
+
+    String rootNetworksToJson(Study study) {
+        ArrayNode array = mapper.createArrayNode();
+        ObjectNode rootNetwork = array.addObject();
+        rootNetwork.put("rootNetworkUuid", study.getRootNetworkUuid());
+        rootNetwork.put("name", "RN1");
+        rootNetwork.put("tag", "RN1");
+        return array.toString();
+    }
+
+    String importParametersToJson() {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("formatName", "XIIDM");
+        ArrayNode parameters = node.putArray("parameters");
+        ObjectNode extensions = parameters.addObject();
+        extensions.put("name", "iidm.import.xml.included.extensions");
+        extensions.put("type", "STRING_LIST");
+        extensions.put("description", padding);
+        ArrayNode possibleValues = extensions.putArray("possibleValues");
+        List.of("activePowerControl", "slackTerminal", "operatingStatus").forEach(possibleValues::add);
+        return node.toString();
+    }
+
+    // --------------------------------------------------------
+    // notification message: {"payload": ..., "headers": {...}}
+    String notification(Map<String, String> headers) {
+        ObjectNode message = mapper.createObjectNode();
+        message.put("payload", padding);
+        ObjectNode headersNode = message.putObject("headers");
+        headers.forEach(headersNode::put);
+        return message.toString();
+    }
+
+    String directoriesInfos(String directoryUuid) {
+        ArrayNode infos = mapper.createArrayNode();
+        Element directory = directoryUuid != null ? elements.get(directoryUuid) : null;
+        ObjectNode info = infos.addObject();
+        info.put("uuid", directoryUuid);
+        info.put("name", directory != null ? directory.name() : null);
+        return infos.toString();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Local stand-in for the GridSuite servers, on Reactor Netty: the endpoints called by the *Requests classes
+// and the directory/study notification websockets, behind gateway-style paths (/directory/v1/..., /study/v1/...).
+// Directory elements, cases and studies are kept in memory; study/case creations and loadflows complete
+// asynchronously with their notifications. Latency, error rate, payload size and tree size are configurable.
+// Embedded: started by EnvProperties for a platform having a 'stub_port' (see stub_env.properties).
+// Standalone: mvn test-compile exec:java -Dexec.mainClass=org.gridsuite.bddtests.stub.StubServer -Dexec.classpathScope=test
+public final class StubServer {
+
+    public record Settings(int port, long latencyMs, long latencyJitterMs, double errorRate, int payloadPaddingBytes,
+                           int treeNodeCount, long asyncCompletionMs) {
+
+        public static Settings fromProperties(Function<String, String> props) {
+            return new Settings(
+                    Integer.parseInt(get(props, "stub_port", "9095")),
+                    Long.parseLong(get(props, "stub_latency_ms", "0")),
+                    Long.parseLong(get(props, "stub_latency_jitter_ms", "0")),
+                    Double.parseDouble(get(props, "stub_error_rate", "0")),
+                    Integer.parseInt(get(props, "stub_payload_padding_bytes", "0")),
+                    Integer.parseInt(get(props, "stub_tree_node_count", "2")),
+                    Long.parseLong(get(props, "stub_async_completion_ms", "200")));
+        }
+
+        private static String get(Function<String, String> props, String name, String defaultValue) {
+            String value = props.apply(name);
+            return value != null && !value.isBlank() ? value.trim() : defaultValue;
+        }
+    }
+
+    public static synchronized StubServer startEmbedded(Settings settings) {
+        if (EMBEDDED == null) {
+            EMBEDDED = new StubServer(settings);
+            EMBEDDED.start();
+        }
+        return EMBEDDED;
+    }
+
+    private static StubServer EMBEDDED = null;
+    private static final String API = "/v1";
+    private static final String JSON = "application/json";
+    private static final String TEXT = "text/plain";
+    private static final String HEADER_USER_ID = "userId";
+
+    private final Settings settings;
+    private final StubData data;
+    private final ObjectMapper mapper = new ObjectMapper();
+    // (studyUuid or null for the directory notifications, message)
+    private final Sinks.Many<Map.Entry<String, String>> notifications = Sinks.many().multicast().directBestEffort();
+    private DisposableServer server = null;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StubServer.class);
+
+    public StubServer(Settings settings) {
+        this.settings = settings;
+        this.data = new StubData(settings.payloadPaddingBytes());
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties props = new Properties();
+        try (InputStream input = StubServer.class.getClassLoader().getResourceAsStream("stub_env.properties")) {
+            if (input != null) {
+                props.load(input);
+            }
+        }
+        // system properties override the stub_env.properties ones
+        StubServer stub = new StubServer(Settings.fromProperties(name -> System.getProperty(name, props.getProperty(name))));
+        stub.start();
+        stub.server.onDispose().block();
+    }
+
+    public synchronized void start() {
+        if (server == null) {
+            server = HttpServer.create()
+                    .host("localhost")
+                    .port(settings.port())
+                    .route(this::routes)
+                    .bindNow();
+            LOGGER.info("Stub server started on port {}: {}", server.port(), settings);
+        }
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    private void routes(HttpServerRoutes routes) {
+        routes
+            // case-server
+            .get("/case" + API + "/cases/{caseUuid}/exists", (req, res) -> reply(res, TEXT,
+                    () -> String.valueOf(data.caseExists(req.param("caseUuid")))))
+            // network-conversion-server
+            .get("/network-conversion" + API + "/cases/{caseUuid}/import-parameters", (req, res) -> reply(res, JSON,
+                    data::importParametersToJson))
+            // directory-server
+            .get("/directory" + API + "/root-directories", (req, res) -> reply(res, JSON,
+                    () -> data.toJson(data.getChildren(null))))
+            .post("/directory" + API + "/root-directories", (req, res) -> withBody(req, body -> reply(res, JSON,
+                    () -> createDirectory(body, null, req.requestHeaders().get(HEADER_USER_ID)))))
+            .get("/directory" + API + "/directories/{directoryUuid}/elements", (req, res) -> reply(res, JSON,
+                    () -> data.toJson(data.getChildren(req.param("directoryUuid")))))
+            .post("/directory" + API + "/directories/{directoryUuid}/elements", (req, res) -> withBody(req, body -> reply(res, JSON,
+                    () -> createDirectory(body, req.param("directoryUuid"), req.requestHeaders().get(HEADER_USER_ID)))))
+            // explore-server
+            .post("/explore" + API + "/explore/cases/{caseName}", (req, res) -> req.receive().then().then(Mono.defer(() -> reply(res, TEXT,
+                    () -> createCase(req.param("caseName"), query(req, "parentDirectoryUuid"), query(req, "description"),
+                            req.requestHeaders().get(HEADER_USER_ID))))))
+            .post("/explore" + API + "/explore/studies/{studyName}/cases/{caseUuid}", (req, res) -> req.receive().then().then(Mono.defer(() -> reply(res, TEXT,
+                    () -> createStudy(req.param("studyName"), query(req, "parentDirectoryUuid"), query(req, "description"),
+                            req.requestHeaders().get(HEADER_USER_ID))))))
+            .delete("/explore" + API + "/explore/elements/{elementUuid}", (req, res) -> reply(res, TEXT,
+                    () -> removeElement(req.param("elementUuid"), req.requestHeaders().get(HEADER_USER_ID))))
+            // study-server
+            .get("/study" + API + "/studies/{studyUuid}/tree", (req, res) -> replyForStudy(req, res, JSON,
+                    study -> data.treeToJson(study)))
+            .get("/study" + API + "/studies/{studyUuid}/tree/nodes/{nodeUuid}", (req, res) -> replyForStudy(req, res, JSON,
+                    study -> data.nodeToJson(study, req.param("nodeUuid"))))
+            .get("/study" + API + "/studies/{studyUuid}/root-networks", (req, res) -> replyForStudy(req, res, JSON,
+                    data::rootNetworksToJson))
+            .post("/study" + API + "/studies/{studyUuid}/nodes/{nodeUuid}/network-modifications", (req, res) -> withBody(req, body ->
+                    replyForStudy(req, res, TEXT, study -> modifyNetwork(req.param("studyUuid"), study, req.param("nodeUuid")))))
+            .put("/study" + API + "/studies/{studyUuid}/root-networks/{rootNetworkUuid}/nodes/{nodeUuid}/loadflow/run", (req, res) ->
+                    replyForStudy(req, res, TEXT, study -> runLoadFlow(req.param("studyUuid"), study, req.param("rootNetworkUuid"), req.param("nodeUuid"))))
+            .get("/study" + API + "/studies/{studyUuid}/root-networks/{rootNetworkUuid}/nodes/{nodeUuid}/loadflow/status", (req, res) ->
+                    replyForStudy(req, res, TEXT, study -> {
+                        String status = study.getLoadFlowStatus(req.param("rootNetworkUuid"), req.param("nodeUuid"));
+                        return status != null ? status : "";
+                    }))
+            .get("/study" + API + "/studies/{studyUuid}/loadflow/parameters", (req, res) -> replyForStudy(req, res, JSON,
+                    StubData.Study::getLoadFlowParameters))
+            .post("/study" + API + "/studies/{studyUuid}/{computationName}/parameters", (req, res) -> withBody(req, body ->
+                    replyForStudy(req, res, TEXT, study -> {
+                        if ("loadflow".equals(req.param("computationName"))) {
+                            study.setLoadFlowParameters(body);
+                        }
+                        return "";
+                    })))
+            // notification servers
+            .get("/directory-notification/notify", (req, res) -> res.sendWebsocket((in, out) ->
+                    out.sendString(notificationsOf(null))))
+            .get("/study-notification/notify", (req, res) -> res.sendWebsocket((in, out) ->
+                    out.sendString(notificationsOf(query(req, "studyUuid")))));
+    }
+
+    // --------------------------------------------------------
+    private String createDirectory(String body, String parentUuid, String userId) {
+        JsonNode json = readJson(body);
+        StubData.Element directory = data.addElement(json.path("elementName").asText(), "DIRECTORY",
+                json.path("owner").asText(userId), json.path("description").asText(null), parentUuid);
+        notifyDirectory(directory, userId);
+        return data.toJson(directory);
+    }
+
+    private String createCase(String caseName, String directoryUuid, String description, String userId) {
+        StubData.Element element = data.addElement(caseName, "CASE", userId, description, directoryUuid);
+        notifyDirectory(element, userId);
+        // the case import completes later
+        Mono.delay(Duration.ofMillis(settings.asyncCompletionMs()))
+                .subscribe(t -> data.addCase(element.uuid()));
+        return "";
+    }
+
+    private String createStudy(String studyName, String directoryUuid, String description, String userId) {
+        StubData.Element element = data.addElement(studyName, "STUDY", userId, description, directoryUuid);
+        // element creation (in creation), then study creation completion
+        notifyDirectory(element, userId);
+        Mono.delay(Duration.ofMillis(settings.asyncCompletionMs()))
+                .subscribe(t -> {
+                    data.addStudy(element.uuid(), settings.treeNodeCount());
+                    notifyDirectory(element, userId);
+                });
+        return "";
+    }
+
+    private String removeElement(String elementUuid, String userId) {
+        StubData.Element removed = data.removeElement(elementUuid);
+        if (removed != null) {
+            notifyDirectory(removed, userId);
+        }
+        return "";
+    }
+
+    private String modifyNetwork(String studyUuid, StubData.Study study, String nodeUuid) {
+        study.clearLoadFlowStatus();
+        notifyStudy(studyUuid, study.getRootNetworkUuid(), nodeUuid, "loadflow_status");
+        return "";
+    }
+
+    private String runLoadFlow(String studyUuid, StubData.Study study, String rootNetworkUuid, String nodeUuid) {
+        study.setLoadFlowStatus(rootNetworkUuid, nodeUuid, "RUNNING");
+        notifyStudy(studyUuid, rootNetworkUuid, nodeUuid, "loadflow_status");
+        Mono.delay(Duration.ofMillis(settings.asyncCompletionMs()))
+                .subscribe(t -> {
+                    study.setLoadFlowStatus(rootNetworkUuid, nodeUuid, "CONVERGED");
+                    notifyStudy(studyUuid, rootNetworkUuid, nodeUuid, "loadflowResult");
+                });
+        return "";
+    }
+
+    // --------------------------------------------------------
+    private void notifyDirectory(StubData.Element element, String userId) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("userId", userId);
+        headers.put("updateType", "directories");
+        headers.put("elementNames", element.name());
+        headers.put("isRootDirectory", String.valueOf(element.parentUuid() == null));
+        if (element.parentUuid() != null) {
+            headers.put("directoryUuid", element.parentUuid());
+            headers.put("directoriesInfos", data.directoriesInfos(element.parentUuid()));
+        }
+        notifications.tryEmitNext(Map.entry("", data.notification(headers)));
+    }
+
+    private void notifyStudy(String studyUuid, String rootNetworkUuid, String nodeUuid, String updateType) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("studyUuid", studyUuid);
+        headers.put("rootNetworkUuid", rootNetworkUuid);
+        headers.put("node", nodeUuid);
+        headers.put("updateType", updateType);
+        notifications.tryEmitNext(Map.entry(studyUuid, data.notification(headers)));
+    }
+
+    private Flux<String> notificationsOf(String studyUuid) {
+        String key = studyUuid != null ? studyUuid : "";
+        return notifications.asFlux()
+                .filter(n -> n.getKey().equals(key))
+                .map(Map.Entry::getValue);
+    }
+
+    // --------------------------------------------------------
+    // simulated latency and errors, then the action (not done on a simulated error)
+    private Mono<Void> reply(HttpServerResponse response, String contentType, Supplier<String> action) {
+        long jitter = settings.latencyJitterMs() > 0 ? ThreadLocalRandom.current().nextLong(-settings.latencyJitterMs(), settings.latencyJitterMs() + 1) : 0;
+        long latency = Math.max(0, settings.latencyMs() + jitter);
+        Mono<Long> delay = latency > 0 ? Mono.delay(Duration.ofMillis(latency)) : Mono.just(0L);
+        return delay.then(Mono.defer(() -> {
+            if (settings.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < settings.errorRate()) {
+                return response.status(HttpResponseStatus.SERVICE_UNAVAILABLE).sendString(Mono.just("stub error")).then();
+            }
+            String body = action.get();
+            if (body == null) {
+                return response.status(HttpResponseStatus.NOT_FOUND).send().then();
+            }
+            return response.header(HttpHeaderNames.CONTENT_TYPE, contentType).sendString(Mono.just(body)).then();
+        }));
+    }
+
+    private Mono<Void> replyForStudy(HttpServerRequest request, HttpServerResponse response, String contentType, Function<StubData.Study, String> action) {
+        return reply(response, contentType, () -> {
+            StubData.Study study = data.getStudy(request.param("studyUuid"));
+            return study != null ? action.apply(study) : null;
+        });
+    }
+
+    private static Publisher<Void> withBody(HttpServerRequest request, Function<String, Publisher<Void>> handler) {
+        return request.receive().aggregate().asString().defaultIfEmpty("").flatMap(body -> Mono.from(handler.apply(body)));
+    }
+
+    private static String query(HttpServerRequest request, String name) {
+        List<String> values = new QueryStringDecoder(request.uri()).parameters().get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private JsonNode readJson(String body) {
+        try {
+            return mapper.readTree(body.isEmpty() ? "{}" : body);
+        } catch (IOException e) {
+            return mapper.createObjectNode();
+        }
+    }
+}
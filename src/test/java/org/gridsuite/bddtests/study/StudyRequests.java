@@ -11,27 +11,32 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.common.JsonStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
 
-import java.util.Iterator;
 import java.util.Optional;
 
+// Each request has a non-blocking variant (xxxAsync, returning a Mono) and a blocking one (a thin wrapper on it)
 public final class StudyRequests {
 
-    public static synchronized StudyRequests getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new StudyRequests();
-        }
-        return INSTANCE;
+    public static StudyRequests getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private static final class InstanceHolder {
+        private static final StudyRequests INSTANCE = new StudyRequests();
     }
 
-    private static StudyRequests INSTANCE = null;
     private final WebClient webClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StudyTreeCache treeCache = new StudyTreeCache(this::getTreeAsync, this::getTreeNodeAsync);
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StudyRequests.class);
 
@@ -39,119 +44,91 @@ public final class StudyRequests {
         webClient = EnvProperties.getInstance().getWebClient(EnvProperties.MicroService.STUDY_SERVER);
     }
 
-    private JsonNode findNodeInTree(JsonNode node, String studyNodeIdentifier, String identifierKey) {
-        if (node.has(identifierKey) && node.get(identifierKey).asText().equalsIgnoreCase(studyNodeIdentifier)) {
-            return node;
-        }
-        if (node.has("children")) {
-            for (Iterator<JsonNode> it = node.get("children").elements(); it.hasNext(); ) {
-                JsonNode subNode = it.next();
-                JsonNode result = findNodeInTree(subNode, studyNodeIdentifier, identifierKey);
-                if (result != null) {
-                    return result;
-                }
-            }
-        }
-        return null;
+    // from the study tree cache (the tree is only downloaded once, then updated from the study notifications)
+    public Mono<String> getNodeIdAsync(String studyId, String studyNodeName) {
+        return treeCache.getNodeIdAsync(studyId, studyNodeName)
+                .doOnNext(nodeId -> LOGGER.info("getNodeId '{}' : '{}'", studyNodeName, nodeId));
     }
 
     public String getNodeId(String studyId, String studyNodeName) {
-        String nodeId = null;
-        JsonNode node = getNodeData(studyId, Optional.empty(), studyNodeName, "name");
-        if (node != null && node.has("id")) {
-            nodeId = node.get("id").asText();
-        }
-        return nodeId;
+        return getNodeIdAsync(studyId, studyNodeName).block();
     }
 
-    public JsonNode getNodeData(String studyId, Optional<String> rootNetworkUuid, String studyNodeIdentifier, String identifierKey) {
-        JsonNode wantedNode;
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode rootNode;
-        final String[] jsonString = {null};
-
+    // tree skeleton only (ids, names and children), for the tree cache
+    private Mono<JsonNode> getTreeAsync(String studyId) {
         String path = UriComponentsBuilder.fromPath("studies/{studyId}/tree")
-                .queryParamIfPresent("rootNetworkUuid", rootNetworkUuid)
                 .buildAndExpand(studyId)
                 .toUriString();
 
-        webClient.get()
-                .uri(path)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(
-                        s -> {
-                            LOGGER.info("getNodeData '{}'", s);
-                            jsonString[0] = s;
-                        }
-                ).block();
-
-        try {
-            rootNode = mapper.readTree(jsonString[0]);
-            wantedNode = findNodeInTree(rootNode, studyNodeIdentifier, identifierKey);
-        } catch (JsonProcessingException je) {
-            return null;
-        }
-        return wantedNode;
+        return JsonStreams.decode(
+                webClient.get()
+                        .uri(path)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class),
+                JsonStreams.project("id", "name", "children"));
     }
 
-    public String builtStatus(String studyId, String rootNetworkUuid, String studyNodeId) {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode node;
-        String built = null;
+    private Mono<JsonNode> getTreeNodeAsync(String studyId, String nodeId) {
+        String path = UriComponentsBuilder.fromPath("studies/{studyId}/tree/nodes/{id}")
+                .buildAndExpand(studyId, nodeId)
+                .toUriString();
 
+        return JsonStreams.decode(
+                webClient.get()
+                        .uri(path)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class),
+                JsonStreams.project("id", "name"));
+    }
+
+    public Mono<String> builtStatusAsync(String studyId, String rootNetworkUuid, String studyNodeId) {
         String path = UriComponentsBuilder.fromPath("studies/{studyId}/tree/nodes/{id}")
                 .queryParam("rootNetworkUuid", rootNetworkUuid)
                 .buildAndExpand(studyId, studyNodeId)
                 .toUriString();
 
-        String jsonString = webClient.get()
+        return webClient.get()
                 .uri(path)
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .flatMap(s -> {
+                    try {
+                        JsonNode node = mapper.readTree(s);
+                        if (node != null && node.has("nodeBuildStatus") && node.get("nodeBuildStatus").has("localBuildStatus")) {
+                            return Mono.just(node.get("nodeBuildStatus").get("localBuildStatus").asText());
+                        }
+                        return Mono.empty();
+                    } catch (JsonProcessingException je) {
+                        return Mono.empty();
+                    }
+                });
+    }
 
-        try {
-            node = mapper.readTree(jsonString);
-            if (node != null && node.has("nodeBuildStatus") && node.get("nodeBuildStatus").has("localBuildStatus")) {
-                built = node.get("nodeBuildStatus").get("localBuildStatus").asText();
-            }
-        } catch (JsonProcessingException je) {
-            return null;
-        }
-        return built;
+    public String builtStatus(String studyId, String rootNetworkUuid, String studyNodeId) {
+        return builtStatusAsync(studyId, rootNetworkUuid, studyNodeId).block();
     }
 
-    public String getFirstRootNetworkId(String studyId) {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonNode rootNode;
-        final String[] jsonString = {null};
+    public Mono<String> getFirstRootNetworkIdAsync(String studyId) {
         String path = UriComponentsBuilder.fromPath("studies/{studyId}/root-networks")
                 .buildAndExpand(studyId)
                 .toUriString();
 
-        webClient.get()
-                .uri(path)
-                .retrieve()
-                .bodyToMono(String.class)
-                .doOnNext(
-                        s -> {
-                            LOGGER.info("getFirstRootNetwork '{}'", s);
-                            jsonString[0] = s;
-                        }
-                ).block();
+        // streaming search: stop reading at the first root network uuid
+        return JsonStreams.decode(
+                        webClient.get()
+                                .uri(path)
+                                .retrieve()
+                                .bodyToFlux(DataBuffer.class),
+                        JsonStreams.findField("rootNetworkUuid"))
+                .doOnNext(rootNetworkUuid -> LOGGER.info("getFirstRootNetwork '{}'", rootNetworkUuid));
+    }
 
-        try {
-            rootNode = mapper.readTree(jsonString[0]);
-            return rootNode.elements().next().get("rootNetworkUuid").asText();
-        } catch (JsonProcessingException je) {
-            return null;
-        }
+    public String getFirstRootNetworkId(String studyId) {
+        return getFirstRootNetworkIdAsync(studyId).block();
     }
 
-    public void updateSwitch(String switchId, String studyId, String nodeId, boolean openState) {
+    public Mono<Void> updateSwitchAsync(String switchId, String studyId, String nodeId, boolean openState) {
         // create json body
-        ObjectMapper mapper = new ObjectMapper();
         ObjectNode body = mapper.createObjectNode();
         body.put("equipmentAttributeName", "open");
         body.put("equipmentAttributeValue", openState);
@@ -164,92 +141,108 @@ public final class StudyRequests {
                 .toUriString();
         LOGGER.info("updateSwitch uri: '{}'", path);
 
-        webClient.post()
+        return webClient.post()
                 .uri(path)
                 .header("userId", EnvProperties.getInstance().getUserName())
                 .body(BodyInserters.fromValue(body.toString()))
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .then();
     }
 
-    public void runLoadFlow(String studyId, String rootNetworkUuid, String nodeId, int limitReduction) {
+    public void updateSwitch(String switchId, String studyId, String nodeId, boolean openState) {
+        updateSwitchAsync(switchId, studyId, nodeId, openState).block();
+    }
+
+    public Mono<Void> runLoadFlowAsync(String studyId, String rootNetworkUuid, String nodeId, int limitReduction) {
         String path = UriComponentsBuilder.fromPath(
                         "studies/{studyId}/root-networks/{rootNetworkUuid}/nodes/{nodeUuid}/loadflow/run?limitReduction={limitReduction}")
                 .buildAndExpand(studyId, rootNetworkUuid, nodeId, limitReduction / 100.)
                 .toUriString();
         LOGGER.info("runLoadFlow uri: '{}'", path);
 
-        webClient.put()
+        return webClient.put()
                 .uri(path)
                 .header("userId", EnvProperties.getInstance().getUserName())
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .then();
     }
 
-    public void setComputationParameters(String studyId, String computationName, String resourceFileContent) {
+    public void runLoadFlow(String studyId, String rootNetworkUuid, String nodeId, int limitReduction) {
+        runLoadFlowAsync(studyId, rootNetworkUuid, nodeId, limitReduction).block();
+    }
+
+    public Mono<Void> setComputationParametersAsync(String studyId, String computationName, String resourceFileContent) {
         String path = UriComponentsBuilder.fromPath("studies/{studyId}/{computationName}/parameters")
                 .buildAndExpand(studyId, computationName)
                 .toUriString();
         LOGGER.info("setComputationParameters uri: '{}'", path);
-        webClient.post()
+        return webClient.post()
                 .uri(path)
                 .header("userId", EnvProperties.getInstance().getUserName())
                 .body(BodyInserters.fromValue(resourceFileContent))
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
+                .then();
     }
 
-    public void setLoadFlowProvider(String provider, String studyId) {
-        String getPath = UriComponentsBuilder.fromPath("studies/{studyId}/loadflow/parameters")
+    public void setComputationParameters(String studyId, String computationName, String resourceFileContent) {
+        setComputationParametersAsync(studyId, computationName, resourceFileContent).block();
+    }
+
+    public Mono<Void> setLoadFlowProviderAsync(String provider, String studyId) {
+        String path = UriComponentsBuilder.fromPath("studies/{studyId}/loadflow/parameters")
                 .buildAndExpand(studyId)
                 .toUriString();
-        LOGGER.info("getLoadFlowParameters uri: '{}'", getPath);
+        LOGGER.info("getLoadFlowParameters uri: '{}'", path);
 
-        String currentParams = webClient.get()
-                .uri(getPath)
+        return webClient.get()
+                .uri(path)
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
-
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode paramsNode = currentParams != null
-                    ? (ObjectNode) mapper.readTree(currentParams)
-                    : mapper.createObjectNode();
-            paramsNode.put("provider", provider);
-
-            String postPath = UriComponentsBuilder.fromPath("studies/{studyId}/loadflow/parameters")
-                    .buildAndExpand(studyId)
-                    .toUriString();
-            LOGGER.info("setLoadFlowProvider (via parameters) with {} uri: '{}'", provider, postPath);
-
-            webClient.post()
-                    .uri(postPath)
-                    .header("userId", EnvProperties.getInstance().getUserName())
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .body(BodyInserters.fromValue(paramsNode.toString()))
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to set loadflow provider", e);
-        }
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(currentParams -> {
+                    ObjectNode paramsNode;
+                    try {
+                        paramsNode = currentParams.isPresent()
+                                ? (ObjectNode) mapper.readTree(currentParams.get())
+                                : mapper.createObjectNode();
+                    } catch (JsonProcessingException e) {
+                        return Mono.error(new RuntimeException("Failed to set loadflow provider", e));
+                    }
+                    paramsNode.put("provider", provider);
+                    LOGGER.info("setLoadFlowProvider (via parameters) with {} uri: '{}'", provider, path);
+
+                    return webClient.post()
+                            .uri(path)
+                            .header("userId", EnvProperties.getInstance().getUserName())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .body(BodyInserters.fromValue(paramsNode.toString()))
+                            .retrieve()
+                            .bodyToMono(String.class)
+                            .then();
+                });
     }
 
-    public String getLoadFlowInfos(String studyId, String rootNetworkUuid, String nodeId) {
+    public void setLoadFlowProvider(String provider, String studyId) {
+        setLoadFlowProviderAsync(provider, studyId).block();
+    }
+
+    public Mono<String> getLoadFlowInfosAsync(String studyId, String rootNetworkUuid, String nodeId) {
         String path = UriComponentsBuilder.fromPath("studies/{studyId}/root-networks/{rootNetworkUuid}/nodes/{nodeId}/loadflow/status")
                 .buildAndExpand(studyId, rootNetworkUuid, nodeId)
                 .toUriString();
         LOGGER.info("getLoadFlowInfos uri: '{}'", path);
-        String status = webClient.get()
+        return webClient.get()
                 .uri(path)
                 .retrieve()
                 .bodyToMono(String.class)
-                .block();
-        return status == null ? "NOT_DONE" : status;
+                .defaultIfEmpty("NOT_DONE");
     }
-}
 
+    public String getLoadFlowInfos(String studyId, String rootNetworkUuid, String nodeId) {
+        return getLoadFlowInfosAsync(studyId, rootNetworkUuid, nodeId).block();
+    }
+}
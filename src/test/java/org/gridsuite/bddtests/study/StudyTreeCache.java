@@ -0,0 +1,255 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.study;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.gridsuite.bddtests.common.EnvProperties;
+import org.gridsuite.bddtests.common.Notification;
+import org.gridsuite.bddtests.common.NotificationHub;
+import org.gridsuite.bddtests.common.NotificationWaiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Client-side cache of the study trees (node ids, names and parents only), with a name -> id and an id -> node index.
+// A tree is downloaded once, then kept up-to-date from the study notifications: created and renamed nodes are
+// fetched alone, deleted nodes are removed, and structural changes (moves, pasted subtrees) mark the tree as stale.
+// A name missing from the tree is always looked up again in a new download, and name conflicts coming from the
+// notifications mark the tree as stale, so that the answer is the same as a search in a freshly downloaded tree.
+// Bounded: the least recently used studies are evicted (and their notification listener removed, which releases the
+// study websocket once it has no other user).
+final class StudyTreeCache {
+
+    private record TreeNode(String id, String name, String parentId) {
+    }
+
+    private static final class StudyTree {
+        private Map<String, TreeNode> nodesById = new HashMap<>();
+        private Map<String, String> idsByName = new HashMap<>();
+        private long loadedAtNanos = 0;
+        private boolean stale = true;
+        // incremented on each notification, so that a tree loaded meanwhile is not kept
+        private long generation = 0;
+        private Disposable listener = null;
+    }
+
+    private static final int DEFAULT_MAX_STUDIES = 20;
+    private static final long DEFAULT_TTL_MS = 60000;
+    private static final Duration WS_READY_TIMEOUT = Duration.ofSeconds(5);
+    // study notification update types and headers
+    private static final String HEADER_UPDATE_TYPE = "updateType";
+    private static final String HEADER_NEW_NODE = "newNode";
+    private static final String HEADER_PARENT_NODE = "parentNode";
+    private static final String HEADER_NODE = "node";
+    private static final String HEADER_NODES = "nodes";
+    private static final String NODE_CREATED = "nodeCreated";
+    private static final String NODE_EDITED = "nodeEdited";
+    private static final String NODE_RENAMED = "nodeRenamed";
+    private static final String NODE_DELETED = "nodeDeleted";
+    private static final String NODE_MOVED = "nodeMoved";
+    private static final String SUBTREE_MOVED = "subtreeMoved";
+    private static final String SUBTREE_CREATED = "subtreeCreated";
+
+    // studyId -> tree projected on id/name/children
+    private final Function<String, Mono<JsonNode>> treeLoader;
+    // (studyId, nodeId) -> node projected on id/name
+    private final BiFunction<String, String, Mono<JsonNode>> nodeLoader;
+    // access order, for LRU eviction
+    private final LinkedHashMap<String, StudyTree> trees = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudyTreeCache.class);
+
+    StudyTreeCache(Function<String, Mono<JsonNode>> treeLoader, BiFunction<String, String, Mono<JsonNode>> nodeLoader) {
+        this.treeLoader = treeLoader;
+        this.nodeLoader = nodeLoader;
+    }
+
+    // node names are matched ignoring case, the first one in tree order wins (as the tree search does)
+    Mono<String> getNodeIdAsync(String studyId, String nodeName) {
+        return Mono.defer(() -> {
+            String nameKey = nodeName.toLowerCase(Locale.ROOT);
+            StudyTree tree;
+            boolean firstLoad = false;
+            synchronized (this) {
+                tree = trees.get(studyId);
+                if (tree != null && !tree.stale && System.nanoTime() - tree.loadedAtNanos < getTtlNanos()) {
+                    String nodeId = tree.idsByName.get(nameKey);
+                    if (nodeId != null) {
+                        return Mono.just(nodeId);
+                    }
+                    // unknown name: the creation notification may not have been processed yet, reload
+                }
+                if (tree == null) {
+                    tree = addTree(studyId);
+                    firstLoad = true;
+                }
+            }
+            StudyTree loadedTree = tree;
+            // the first download waits for the study socket, so that no update after it can be missed
+            return (firstLoad ? awaitConnected(studyId) : Mono.<Void>empty())
+                    .then(Mono.defer(() -> load(studyId, loadedTree, nameKey)));
+        });
+    }
+
+    private Mono<Void> awaitConnected(String studyId) {
+        return NotificationHub.getInstance().connected(NotificationWaiter.getStudyNotificationURI(studyId))
+                .timeout(WS_READY_TIMEOUT)
+                .onErrorResume(e -> {
+                    // the tree is still usable: a missed creation is caught by the reload on unknown names
+                    LOGGER.warn("Study '{}' websocket not connected, tree loaded anyway: {}", studyId, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<String> load(String studyId, StudyTree tree, String nameKey) {
+        long loadGeneration;
+        synchronized (this) {
+            loadGeneration = tree.generation;
+        }
+        return treeLoader.apply(studyId).flatMap(root -> {
+            Map<String, TreeNode> nodesById = new HashMap<>();
+            Map<String, String> idsByName = new HashMap<>();
+            index(root, null, nodesById, idsByName);
+            synchronized (this) {
+                if (trees.get(studyId) == tree && tree.generation == loadGeneration) {
+                    tree.nodesById = nodesById;
+                    tree.idsByName = idsByName;
+                    tree.loadedAtNanos = System.nanoTime();
+                    tree.stale = false;
+                }
+            }
+            LOGGER.debug("Study tree '{}' loaded: {} nodes", studyId, nodesById.size());
+            return Mono.justOrEmpty(idsByName.get(nameKey));
+        });
+    }
+
+    private static void index(JsonNode node, String parentId, Map<String, TreeNode> nodesById, Map<String, String> idsByName) {
+        String id = node.path("id").asText(null);
+        String name = node.path("name").asText(null);
+        if (id != null && name != null) {
+            nodesById.put(id, new TreeNode(id, name, parentId));
+            idsByName.putIfAbsent(name.toLowerCase(Locale.ROOT), id);
+        }
+        for (JsonNode child : node.path("children")) {
+            index(child, id, nodesById, idsByName);
+        }
+    }
+
+    // the listener is registered before the first load, which waits for the socket connection (see getNodeIdAsync)
+    private StudyTree addTree(String studyId) {
+        StudyTree tree = new StudyTree();
+        trees.put(studyId, tree);
+        tree.listener = NotificationHub.getInstance().addListener(NotificationWaiter.getStudyNotificationURI(studyId),
+                notification -> onNotification(studyId, tree, notification));
+        int maxStudies = getMaxStudies();
+        Iterator<Map.Entry<String, StudyTree>> eldest = trees.entrySet().iterator();
+        while (trees.size() > maxStudies && eldest.hasNext()) {
+            Map.Entry<String, StudyTree> entry = eldest.next();
+            if (entry.getValue() != tree) {
+                entry.getValue().listener.dispose();
+                eldest.remove();
+            }
+        }
+        return tree;
+    }
+
+    // called from the websocket thread: nothing blocking here, single nodes are fetched asynchronously
+    private void onNotification(String studyId, StudyTree tree, Notification notification) {
+        String updateType = notification.getHeader(HEADER_UPDATE_TYPE);
+        if (updateType == null) {
+            return;
+        }
+        switch (updateType) {
+            case NODE_CREATED -> fetchNode(studyId, tree, notification.getHeader(HEADER_NEW_NODE), notification.getHeader(HEADER_PARENT_NODE));
+            case NODE_EDITED, NODE_RENAMED -> fetchNode(studyId, tree, notification.getHeader(HEADER_NODE), null);
+            case NODE_DELETED -> removeNodes(studyId, tree, notification.getHeaderValues(HEADER_NODES));
+            case NODE_MOVED, SUBTREE_MOVED, SUBTREE_CREATED -> markStale(studyId, tree);
+            default -> {
+                // not a tree structure change
+            }
+        }
+    }
+
+    private void fetchNode(String studyId, StudyTree tree, String nodeId, String parentId) {
+        if (nodeId == null) {
+            return;
+        }
+        synchronized (this) {
+            tree.generation++;
+        }
+        nodeLoader.apply(studyId, nodeId).subscribe(
+            node -> putNode(studyId, tree, nodeId, node.path("name").asText(null), parentId),
+            e -> {
+                LOGGER.warn("Cannot fetch node '{}' of study '{}': {}", nodeId, studyId, e.getMessage());
+                markStale(studyId, tree);
+            });
+    }
+
+    private synchronized void putNode(String studyId, StudyTree tree, String nodeId, String name, String parentId) {
+        if (name == null) {
+            return;
+        }
+        String nameKey = name.toLowerCase(Locale.ROOT);
+        TreeNode previous = tree.nodesById.get(nodeId);
+        if (previous != null) {
+            // edited or renamed node: keep its position in the tree
+            parentId = previous.parentId();
+            if (previous.name().toLowerCase(Locale.ROOT).equals(nameKey)) {
+                tree.nodesById.put(nodeId, new TreeNode(nodeId, name, parentId));
+                return;
+            }
+            tree.idsByName.remove(previous.name().toLowerCase(Locale.ROOT), nodeId);
+        }
+        tree.nodesById.put(nodeId, new TreeNode(nodeId, name, parentId));
+        String existingId = tree.idsByName.putIfAbsent(nameKey, nodeId);
+        if (existingId != null && !existingId.equals(nodeId)) {
+            // same name as another node: which one comes first in tree order is not known here
+            markStale(studyId, tree);
+        }
+    }
+
+    private synchronized void removeNodes(String studyId, StudyTree tree, List<String> nodeIds) {
+        tree.generation++;
+        for (String nodeId : nodeIds) {
+            TreeNode removed = tree.nodesById.remove(nodeId);
+            if (removed != null) {
+                tree.idsByName.remove(removed.name().toLowerCase(Locale.ROOT), nodeId);
+            }
+        }
+        // remaining children of a removed node were moved up (or removed too): the parents are not known anymore
+        if (tree.nodesById.values().stream().anyMatch(n -> n.parentId() != null && nodeIds.contains(n.parentId()))) {
+            markStale(studyId, tree);
+        }
+    }
+
+    private synchronized void markStale(String studyId, StudyTree tree) {
+        tree.generation++;
+        tree.stale = true;
+        LOGGER.debug("Study tree '{}' invalidated", studyId);
+    }
+
+    private static int getMaxStudies() {
+        String value = EnvProperties.getInstance().getProp("study_tree_cache_max_studies");
+        return value != null ? Integer.parseInt(value.trim()) : DEFAULT_MAX_STUDIES;
+    }
+
+    private static long getTtlNanos() {
+        String value = EnvProperties.getInstance().getProp("study_tree_cache_ttl_ms");
+        return (value != null ? Long.parseLong(value.trim()) : DEFAULT_TTL_MS) * 1_000_000L;
+    }
+}
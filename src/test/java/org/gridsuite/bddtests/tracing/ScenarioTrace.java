@@ -0,0 +1,65 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.tracing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// The spans of one scenario, under one W3C trace id (HTTP spans may be ended by reactor threads).
+public final class ScenarioTrace {
+
+    private final String traceId;
+    private final String scenarioName;
+    private final Instant start = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = 0;
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+
+    ScenarioTrace(String traceId, String scenarioName) {
+        this.traceId = traceId;
+        this.scenarioName = scenarioName;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getEndNanos() {
+        return endNanos != 0 ? endNanos : System.nanoTime();
+    }
+
+    void end() {
+        endNanos = System.nanoTime();
+    }
+
+    void add(Span span) {
+        spans.add(span);
+    }
+
+    // by start time
+    public List<Span> getSpans() {
+        List<Span> sorted = new ArrayList<>(spans);
+        sorted.sort(Comparator.comparingLong(Span::getStartNanos));
+        return sorted;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// A timed operation of a scenario trace: the scenario itself, a step, an HTTP call, a wait or a poll.
+// Scoped spans (see Tracing.startSpan) are the parent of the spans started on the same thread until they are closed.
+public final class Span implements AutoCloseable {
+
+    public enum Kind {
+        SCENARIO,
+        STEP,
+        HTTP,
+        WAIT,
+        POLL,
+    }
+
+    private final ScenarioTrace trace;
+    private final String spanId;
+    private final String parentId;
+    private final String name;
+    private final Kind kind;
+    private final boolean scoped;
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos = 0;
+    private final Map<String, String> attributes = new ConcurrentHashMap<>();
+
+    Span(ScenarioTrace trace, String spanId, String parentId, String name, Kind kind, boolean scoped) {
+        this.trace = trace;
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.name = name;
+        this.kind = kind;
+        this.scoped = scoped;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    // the end of the trace for a span not ended (ex: HTTP body never read)
+    public long getEndNanos() {
+        return endNanos != 0 ? endNanos : trace.getEndNanos();
+    }
+
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    ScenarioTrace getTrace() {
+        return trace;
+    }
+
+    public Span setAttribute(String key, Object value) {
+        attributes.put(key, String.valueOf(value));
+        return this;
+    }
+
+    // W3C trace context header of a request done in this span
+    public String getTraceparent() {
+        return "00-" + trace.getTraceId() + "-" + spanId + "-01";
+    }
+
+    // the first call wins
+    public void end() {
+        if (endNanos == 0) {
+            endNanos = System.nanoTime();
+            if (scoped) {
+                Tracing.popScope(this);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+}
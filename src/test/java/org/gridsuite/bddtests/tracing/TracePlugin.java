@@ -0,0 +1,167 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Cucumber plugin tracing each scenario (see Tracing): a root span per scenario, a span per step, under which the
+// HTTP calls (TracingFilter), notification waits and polls are recorded. At the end of each scenario, its waterfall
+// is written in the given directory, as JSON and as text (<scenario>_<trace id>.json/.txt).
+// Usage: cucumber.plugin=org.gridsuite.bddtests.tracing.TracePlugin:target/traces
+public class TracePlugin implements ConcurrentEventListener {
+
+    private static final String DEFAULT_OUTPUT_DIR = "target/traces";
+    private static final int BAR_WIDTH = 50;
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // load tests run many scenarios: traces are still propagated, but no waterfall is written
+    private static volatile boolean waterfallsEnabled = true;
+
+    private final Path outputDir;
+    // step spans, by scenario thread
+    private final ThreadLocal<Span> currentStep = new ThreadLocal<>();
+    private final ThreadLocal<Span> currentScenario = new ThreadLocal<>();
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TracePlugin.class);
+
+    public TracePlugin() {
+        this(DEFAULT_OUTPUT_DIR);
+    }
+
+    public TracePlugin(String outputDir) {
+        this.outputDir = Path.of(outputDir);
+    }
+
+    public static void disableWaterfalls() {
+        waterfallsEnabled = false;
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestCaseStarted.class, this::onTestCaseStarted);
+        publisher.registerHandlerFor(TestStepStarted.class, this::onTestStepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+    }
+
+    private void onTestCaseStarted(TestCaseStarted event) {
+        Tracing.startTrace(event.getTestCase().getName());
+        currentScenario.set(Tracing.startSpan(event.getTestCase().getName(), Span.Kind.SCENARIO));
+    }
+
+    private void onTestStepStarted(TestStepStarted event) {
+        // hooks are not traced
+        if (event.getTestStep() instanceof PickleStepTestStep step) {
+            currentStep.set(Tracing.startSpan(step.getStep().getText(), Span.Kind.STEP));
+        }
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        if (event.getTestStep() instanceof PickleStepTestStep) {
+            Span span = currentStep.get();
+            currentStep.remove();
+            if (span != null) {
+                span.setAttribute("status", event.getResult().getStatus().name()).end();
+            }
+        }
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        Span scenario = currentScenario.get();
+        currentScenario.remove();
+        if (scenario != null) {
+            scenario.setAttribute("status", event.getResult().getStatus().name()).end();
+        }
+        ScenarioTrace trace = Tracing.endTrace();
+        if (trace != null && waterfallsEnabled) {
+            writeWaterfall(trace);
+        }
+    }
+
+    // --------------------------------------------------------
+    private void writeWaterfall(ScenarioTrace trace) {
+        String baseName = trace.getScenarioName().replaceAll("[^A-Za-z0-9_-]+", "_") + "_" + trace.getTraceId();
+        try {
+            Files.createDirectories(outputDir);
+            MAPPER.writeValue(outputDir.resolve(baseName + ".json").toFile(), toJson(trace));
+            Files.writeString(outputDir.resolve(baseName + ".txt"), toText(trace), StandardCharsets.UTF_8);
+            LOGGER.info("Scenario waterfall written in '{}'", outputDir.resolve(baseName + ".txt").toAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("Cannot write scenario waterfall in '{}': {}", outputDir, e.getMessage());
+        }
+    }
+
+    static ObjectNode toJson(ScenarioTrace trace) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("traceId", trace.getTraceId());
+        root.put("scenario", trace.getScenarioName());
+        root.put("start", trace.getStart().toString());
+        root.put("durationMs", toMs(trace.getEndNanos() - trace.getStartNanos()));
+        ArrayNode spans = root.putArray("spans");
+        for (Span span : trace.getSpans()) {
+            ObjectNode node = spans.addObject();
+            node.put("spanId", span.getSpanId());
+            node.put("parentId", span.getParentId());
+            node.put("kind", span.getKind().name());
+            node.put("name", span.getName());
+            node.put("startMs", toMs(span.getStartNanos() - trace.getStartNanos()));
+            node.put("durationMs", toMs(span.getEndNanos() - span.getStartNanos()));
+            node.set("attributes", MAPPER.valueToTree(span.getAttributes()));
+        }
+        return root;
+    }
+
+    // one line per span, indented by depth: start offset, duration, bar on the scenario time scale, kind, name
+    static String toText(ScenarioTrace trace) {
+        long total = Math.max(1, trace.getEndNanos() - trace.getStartNanos());
+        List<Span> spans = trace.getSpans();
+        Map<String, Integer> depths = new HashMap<>();
+        StringBuilder text = new StringBuilder()
+                .append("Scenario '").append(trace.getScenarioName()).append("', trace ").append(trace.getTraceId())
+                .append(", started ").append(trace.getStart()).append(", ").append(String.format(Locale.ROOT, "%.0f ms", toMs(total)))
+                .append('\n').append(String.format(Locale.ROOT, "%10s %10s  %-" + BAR_WIDTH + "s  %s%n", "start ms", "dur. ms", "", "span"));
+        for (Span span : spans) {
+            int depth = span.getParentId() != null ? depths.getOrDefault(span.getParentId(), 0) + 1 : 0;
+            depths.put(span.getSpanId(), depth);
+            long offset = span.getStartNanos() - trace.getStartNanos();
+            long duration = span.getEndNanos() - span.getStartNanos();
+            int barStart = (int) Math.min(BAR_WIDTH - 1, offset * BAR_WIDTH / total);
+            int barLength = (int) Math.max(1, Math.min(BAR_WIDTH - barStart, duration * BAR_WIDTH / total));
+            text.append(String.format(Locale.ROOT, "%10.0f %10.0f  ", toMs(offset), toMs(duration)))
+                    .append(" ".repeat(barStart)).append("#".repeat(barLength)).append(" ".repeat(BAR_WIDTH - barStart - barLength))
+                    .append("  ").append("  ".repeat(depth)).append(span.getKind().name()).append(' ').append(span.getName());
+            span.getAttributes().forEach((key, value) -> text.append(' ').append(key).append('=').append(value));
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / 1e6;
+    }
+}
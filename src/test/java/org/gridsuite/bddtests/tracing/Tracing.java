@@ -0,0 +1,106 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.tracing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Current scenario trace and span of the thread: scenarios and their steps run on a single thread, the HTTP calls
+// of a step being done (subscribed) on that thread, so a thread-local context gives the parent of each new span.
+// Without a current trace (ex: calls from reactor threads, tools outside cucumber), no span is recorded.
+public final class Tracing {
+
+    private static final ThreadLocal<ScenarioTrace> CURRENT_TRACE = new ThreadLocal<>();
+    private static final ThreadLocal<Deque<Span>> SCOPES = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private Tracing() {
+        throw new UnsupportedOperationException("Tracing is a utility class and cannot be instantiated");
+    }
+
+    static ScenarioTrace startTrace(String scenarioName) {
+        ScenarioTrace trace = new ScenarioTrace(randomHex(16), scenarioName);
+        CURRENT_TRACE.set(trace);
+        SCOPES.get().clear();
+        return trace;
+    }
+
+    static ScenarioTrace endTrace() {
+        ScenarioTrace trace = CURRENT_TRACE.get();
+        CURRENT_TRACE.remove();
+        SCOPES.remove();
+        if (trace != null) {
+            trace.end();
+        }
+        return trace;
+    }
+
+    // scoped span: parent of the next spans of this thread, until closed (try-with-resources).
+    // Returns null without a current trace (closing is then to be skipped: use end(span))
+    public static Span startSpan(String name, Span.Kind kind) {
+        Span span = newSpan(name, kind, true);
+        if (span != null) {
+            SCOPES.get().push(span);
+        }
+        return span;
+    }
+
+    // span ended by another thread (ex: HTTP call): not a parent of the next spans
+    public static Span startAsyncSpan(String name, Span.Kind kind) {
+        return newSpan(name, kind, false);
+    }
+
+    // null-safe end
+    public static void end(Span span) {
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    private static Span newSpan(String name, Span.Kind kind, boolean scoped) {
+        ScenarioTrace trace = CURRENT_TRACE.get();
+        if (trace == null) {
+            return null;
+        }
+        Span parent = SCOPES.get().peek();
+        Span span = new Span(trace, randomHex(8), parent != null ? parent.getSpanId() : null, name, kind, scoped);
+        trace.add(span);
+        return span;
+    }
+
+    // scopes are closed in order, except on failures (a parent closed before its children): unstacked up to the span
+    static void popScope(Span span) {
+        if (span.getTrace() != CURRENT_TRACE.get()) {
+            return;
+        }
+        Deque<Span> scopes = SCOPES.get();
+        if (scopes.contains(span)) {
+            while (scopes.pop() != span) {
+                // children left open
+            }
+        }
+    }
+
+    // non-zero random id of 'bytes' bytes, as lower case hex (W3C trace context)
+    private static String randomHex(int bytes) {
+        byte[] id = new byte[bytes];
+        do {
+            ThreadLocalRandom.current().nextBytes(id);
+        } while (isZero(id));
+        return HexFormat.of().formatHex(id);
+    }
+
+    private static boolean isZero(byte[] id) {
+        for (byte b : id) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+  Copyright (c) 2022, RTE (http://www.rte-france.com)
+  This Source Code Form is subject to the terms of the Mozilla Public
+  License, v. 2.0. If a copy of the MPL was not distributed with this
+  file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.gridsuite.bddtests.tracing;
+
+import org.gridsuite.bddtests.metrics.HttpTimingFilter;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+// Records a span for each HTTP call done in a scenario trace, until its response body is fully read (or abandoned),
+// and sends its W3C 'traceparent' header: the backend traces of the asynchronous processing
+// (conversion, directory insert, study creation, build...) can be joined to the scenario by trace id.
+public final class TracingFilter implements ExchangeFilterFunction {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+    private static final String STATUS_ATTRIBUTE = "status";
+
+    private final String serviceName;
+
+    public TracingFilter(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            // on subscription, so on the step thread for the blocking requests
+            Span span = Tracing.startAsyncSpan(HttpTimingFilter.getEndpoint(request.method().name(), serviceName, request.url().getPath()), Span.Kind.HTTP);
+            if (span == null) {
+                return next.exchange(request);
+            }
+            ClientRequest tracedRequest = ClientRequest.from(request)
+                    .headers(headers -> headers.set(TRACEPARENT_HEADER, span.getTraceparent()))
+                    .build();
+            return next.exchange(tracedRequest)
+                    .map(response -> {
+                        span.setAttribute(STATUS_ATTRIBUTE, response.statusCode().value());
+                        return response.mutate()
+                                .body(body -> body.doFinally(signal -> span.end()))
+                                .build();
+                    })
+                    .doOnError(e -> span.setAttribute(STATUS_ATTRIBUTE, "ERROR").end());
+        });
+    }
+}
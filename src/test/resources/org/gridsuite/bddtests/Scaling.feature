@@ -0,0 +1,27 @@
+@tagScaling
+Feature: GridSuite scaling tests on synthetic networks
+
+  Background:
+    Given using platform "local"
+
+  # ---------------------------------------------------------------------------
+  Rule: Measure case import, study creation and loadflow durations as the network size grows
+
+    Scenario Outline: create a study from a synthetic network of <substations> substations, run a loadflow
+
+      Given using tmp directory as "tmpdir"
+
+      When create case "synthetic<substations>" in "tmpdir" from synthetic network with <substations> substations
+      And create study "syntheticStudy<substations>" in "tmpdir" from case "synthetic<substations>"
+      And get study "syntheticStudy<substations>" from "tmpdir"
+      And get first root network from "syntheticStudy<substations>"
+      And get node "N1"
+      And using loadflow "OpenLoadFlow"
+      And run loadflow
+      Then loadflow status is "CONVERGED"
+
+      Examples:
+        | substations |
+        | 100         |
+        | 1000        |
+        | 5000        |